@@ -0,0 +1,22 @@
+package de.segelbundesliga.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "application.optimizer")
+public class OptimizerProperties {
+
+    /**
+     * Number of threads of the match matrix phase of one optimization, for its branches or islands and its start
+     * populations (default: 1 = sequential)
+     */
+    private int threads = 1;
+
+    /**
+     * Memory the populations of one optimization may use; larger configurations are refused (default: 512 MB)
+     */
+    private int memoryBudgetMb = 512;
+}
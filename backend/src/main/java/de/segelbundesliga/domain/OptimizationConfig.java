@@ -30,6 +30,15 @@ public class OptimizationConfig {
     private Integer mmIndividuals = 100;
     private Double mmEarlyStopping = -1.0;
     private Integer mmShowEveryN = 1000;
+    private Long mmTimeBudgetMs;
+    private Integer mmConvergenceWindow;
+    private Double mmMinImprovementPerSecond;
+    @Enumerated(EnumType.STRING)
+    private SearchStrategy mmStrategy = SearchStrategy.GENETIC;
+    private Double mmTemperature;
+    private Integer mmTabuTenure;
+    private Integer mmTabuCandidates;
+    private Double mmConstructiveShare;
 
     // Boat Schedule settings
     private Integer bsSwapBoats = 2;
@@ -41,6 +50,18 @@ public class OptimizationConfig {
     private Integer bsIndividuals = 100;
     private Double bsEarlyStopping = -1.0;
     private Integer bsShowEveryN = 1000;
+    private Long bsTimeBudgetMs;
+    private Integer bsConvergenceWindow;
+    private Double bsMinImprovementPerSecond;
+    @Enumerated(EnumType.STRING)
+    private SearchStrategy bsStrategy = SearchStrategy.GENETIC;
+    private Double bsTemperature;
+    private Integer bsTabuTenure;
+    private Integer bsTabuCandidates;
+    private Integer bsAssignments;
+
+    // if set, loops, individuals and swap counts are sized for this run time
+    private Long autoTuneTargetMs;
 
     @CreatedDate
     private Instant createdAt;
@@ -154,6 +175,70 @@ public class OptimizationConfig {
         this.mmShowEveryN = mmShowEveryN;
     }
 
+    public Long getMmTimeBudgetMs() {
+        return mmTimeBudgetMs;
+    }
+
+    public void setMmTimeBudgetMs(Long mmTimeBudgetMs) {
+        this.mmTimeBudgetMs = mmTimeBudgetMs;
+    }
+
+    public Integer getMmConvergenceWindow() {
+        return mmConvergenceWindow;
+    }
+
+    public void setMmConvergenceWindow(Integer mmConvergenceWindow) {
+        this.mmConvergenceWindow = mmConvergenceWindow;
+    }
+
+    public Double getMmMinImprovementPerSecond() {
+        return mmMinImprovementPerSecond;
+    }
+
+    public void setMmMinImprovementPerSecond(Double mmMinImprovementPerSecond) {
+        this.mmMinImprovementPerSecond = mmMinImprovementPerSecond;
+    }
+
+    public SearchStrategy getMmStrategy() {
+        return mmStrategy;
+    }
+
+    public void setMmStrategy(SearchStrategy mmStrategy) {
+        this.mmStrategy = mmStrategy;
+    }
+
+    public Double getMmTemperature() {
+        return mmTemperature;
+    }
+
+    public void setMmTemperature(Double mmTemperature) {
+        this.mmTemperature = mmTemperature;
+    }
+
+    public Integer getMmTabuTenure() {
+        return mmTabuTenure;
+    }
+
+    public void setMmTabuTenure(Integer mmTabuTenure) {
+        this.mmTabuTenure = mmTabuTenure;
+    }
+
+    public Integer getMmTabuCandidates() {
+        return mmTabuCandidates;
+    }
+
+    public void setMmTabuCandidates(Integer mmTabuCandidates) {
+        this.mmTabuCandidates = mmTabuCandidates;
+    }
+
+    public Double getMmConstructiveShare() {
+        return mmConstructiveShare;
+    }
+
+    public void setMmConstructiveShare(Double mmConstructiveShare) {
+        this.mmConstructiveShare = mmConstructiveShare;
+    }
+
     public Integer getBsSwapBoats() {
         return bsSwapBoats;
     }
@@ -226,6 +311,78 @@ public class OptimizationConfig {
         this.bsShowEveryN = bsShowEveryN;
     }
 
+    public Long getBsTimeBudgetMs() {
+        return bsTimeBudgetMs;
+    }
+
+    public void setBsTimeBudgetMs(Long bsTimeBudgetMs) {
+        this.bsTimeBudgetMs = bsTimeBudgetMs;
+    }
+
+    public Integer getBsConvergenceWindow() {
+        return bsConvergenceWindow;
+    }
+
+    public void setBsConvergenceWindow(Integer bsConvergenceWindow) {
+        this.bsConvergenceWindow = bsConvergenceWindow;
+    }
+
+    public Double getBsMinImprovementPerSecond() {
+        return bsMinImprovementPerSecond;
+    }
+
+    public void setBsMinImprovementPerSecond(Double bsMinImprovementPerSecond) {
+        this.bsMinImprovementPerSecond = bsMinImprovementPerSecond;
+    }
+
+    public SearchStrategy getBsStrategy() {
+        return bsStrategy;
+    }
+
+    public void setBsStrategy(SearchStrategy bsStrategy) {
+        this.bsStrategy = bsStrategy;
+    }
+
+    public Double getBsTemperature() {
+        return bsTemperature;
+    }
+
+    public void setBsTemperature(Double bsTemperature) {
+        this.bsTemperature = bsTemperature;
+    }
+
+    public Integer getBsTabuTenure() {
+        return bsTabuTenure;
+    }
+
+    public void setBsTabuTenure(Integer bsTabuTenure) {
+        this.bsTabuTenure = bsTabuTenure;
+    }
+
+    public Integer getBsTabuCandidates() {
+        return bsTabuCandidates;
+    }
+
+    public void setBsTabuCandidates(Integer bsTabuCandidates) {
+        this.bsTabuCandidates = bsTabuCandidates;
+    }
+
+    public Integer getBsAssignments() {
+        return bsAssignments;
+    }
+
+    public void setBsAssignments(Integer bsAssignments) {
+        this.bsAssignments = bsAssignments;
+    }
+
+    public Long getAutoTuneTargetMs() {
+        return autoTuneTargetMs;
+    }
+
+    public void setAutoTuneTargetMs(Long autoTuneTargetMs) {
+        this.autoTuneTargetMs = autoTuneTargetMs;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -241,4 +398,10 @@ public class OptimizationConfig {
     public void setUpdatedAt(Instant updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public enum SearchStrategy {
+        GENETIC,
+        SIMULATED_ANNEALING,
+        TABU_SEARCH
+    }
 }
@@ -34,6 +34,17 @@ public class Schedule {
     private Integer boatChanges;
     private Double finalScore;
 
+    // the optimization parameters the schedule was computed with, as JSON
+    @Column(columnDefinition = "TEXT")
+    private String optimizationParams;
+
+    // the populations stopped before their loops were done, counted per phase and reason
+    @Column(length = 1000)
+    private String stopReasons;
+
+    // share of the match matrix costs above their theoretical lower bound, 0 if proven optimal
+    private Double optimalityGap;
+
     @CreatedDate
     private Instant createdAt;
 
@@ -122,6 +133,30 @@ public class Schedule {
         this.finalScore = finalScore;
     }
 
+    public String getOptimizationParams() {
+        return optimizationParams;
+    }
+
+    public void setOptimizationParams(String optimizationParams) {
+        this.optimizationParams = optimizationParams;
+    }
+
+    public String getStopReasons() {
+        return stopReasons;
+    }
+
+    public void setStopReasons(String stopReasons) {
+        this.stopReasons = stopReasons;
+    }
+
+    public Double getOptimalityGap() {
+        return optimalityGap;
+    }
+
+    public void setOptimalityGap(Double optimalityGap) {
+        this.optimalityGap = optimalityGap;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
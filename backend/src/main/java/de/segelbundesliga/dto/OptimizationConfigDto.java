@@ -1,6 +1,8 @@
 package de.segelbundesliga.dto;
 
 import de.segelbundesliga.domain.OptimizationConfig;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -50,6 +52,35 @@ public class OptimizationConfigDto {
         @Min(1)
         private Integer mmShowEveryN = 1000;
 
+        // wall-clock budget of the phase, optional
+        @Min(1)
+        private Long mmTimeBudgetMs;
+
+        // convergence-based early stopping, optional
+        @Min(1)
+        private Integer mmConvergenceWindow;
+
+        @DecimalMin(value = "0.0", inclusive = false)
+        private Double mmMinImprovementPerSecond;
+
+        // search of the phase and its parameters, optional except for the strategy
+        @NotNull
+        private OptimizationConfig.SearchStrategy mmStrategy = OptimizationConfig.SearchStrategy.GENETIC;
+
+        @DecimalMin(value = "0.0", inclusive = false)
+        private Double mmTemperature;
+
+        @Min(0)
+        private Integer mmTabuTenure;
+
+        @Min(1)
+        private Integer mmTabuCandidates;
+
+        // share of the start individuals built from a near-balanced construction, optional
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private Double mmConstructiveShare;
+
         // Boat Schedule settings
         @NotNull
         @Min(1)
@@ -82,6 +113,35 @@ public class OptimizationConfigDto {
         @NotNull
         @Min(1)
         private Integer bsShowEveryN = 1000;
+
+        @Min(1)
+        private Long bsTimeBudgetMs;
+
+        @Min(1)
+        private Integer bsConvergenceWindow;
+
+        @DecimalMin(value = "0.0", inclusive = false)
+        private Double bsMinImprovementPerSecond;
+
+        @NotNull
+        private OptimizationConfig.SearchStrategy bsStrategy = OptimizationConfig.SearchStrategy.GENETIC;
+
+        @DecimalMin(value = "0.0", inclusive = false)
+        private Double bsTemperature;
+
+        @Min(0)
+        private Integer bsTabuTenure;
+
+        @Min(1)
+        private Integer bsTabuCandidates;
+
+        // optimal flight re-assignments per generation of the genetic algorithm, optional
+        @Min(0)
+        private Integer bsAssignments;
+
+        // sizes loops, individuals and swap counts for this run time, optional
+        @Min(1)
+        private Long autoTuneTargetMs;
     }
 
     @Data
@@ -113,6 +173,30 @@ public class OptimizationConfigDto {
         @Min(1)
         private Integer mmShowEveryN;
 
+        @Min(1)
+        private Long mmTimeBudgetMs;
+
+        @Min(1)
+        private Integer mmConvergenceWindow;
+
+        @DecimalMin(value = "0.0", inclusive = false)
+        private Double mmMinImprovementPerSecond;
+
+        private OptimizationConfig.SearchStrategy mmStrategy;
+
+        @DecimalMin(value = "0.0", inclusive = false)
+        private Double mmTemperature;
+
+        @Min(0)
+        private Integer mmTabuTenure;
+
+        @Min(1)
+        private Integer mmTabuCandidates;
+
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private Double mmConstructiveShare;
+
         // Boat Schedule settings
         @Min(1)
         private Integer bsSwapBoats;
@@ -134,6 +218,32 @@ public class OptimizationConfigDto {
 
         @Min(1)
         private Integer bsShowEveryN;
+
+        @Min(1)
+        private Long bsTimeBudgetMs;
+
+        @Min(1)
+        private Integer bsConvergenceWindow;
+
+        @DecimalMin(value = "0.0", inclusive = false)
+        private Double bsMinImprovementPerSecond;
+
+        private OptimizationConfig.SearchStrategy bsStrategy;
+
+        @DecimalMin(value = "0.0", inclusive = false)
+        private Double bsTemperature;
+
+        @Min(0)
+        private Integer bsTabuTenure;
+
+        @Min(1)
+        private Integer bsTabuCandidates;
+
+        @Min(0)
+        private Integer bsAssignments;
+
+        @Min(1)
+        private Long autoTuneTargetMs;
     }
 
     @Data
@@ -153,6 +263,14 @@ public class OptimizationConfigDto {
         private Integer mmIndividuals;
         private Double mmEarlyStopping;
         private Integer mmShowEveryN;
+        private Long mmTimeBudgetMs;
+        private Integer mmConvergenceWindow;
+        private Double mmMinImprovementPerSecond;
+        private OptimizationConfig.SearchStrategy mmStrategy;
+        private Double mmTemperature;
+        private Integer mmTabuTenure;
+        private Integer mmTabuCandidates;
+        private Double mmConstructiveShare;
 
         // Boat Schedule settings
         private Integer bsSwapBoats;
@@ -164,6 +282,16 @@ public class OptimizationConfigDto {
         private Integer bsIndividuals;
         private Double bsEarlyStopping;
         private Integer bsShowEveryN;
+        private Long bsTimeBudgetMs;
+        private Integer bsConvergenceWindow;
+        private Double bsMinImprovementPerSecond;
+        private OptimizationConfig.SearchStrategy bsStrategy;
+        private Double bsTemperature;
+        private Integer bsTabuTenure;
+        private Integer bsTabuCandidates;
+        private Integer bsAssignments;
+
+        private Long autoTuneTargetMs;
 
         private Instant createdAt;
         private Instant updatedAt;
@@ -185,6 +313,14 @@ public class OptimizationConfigDto {
             dto.setMmIndividuals(entity.getMmIndividuals());
             dto.setMmEarlyStopping(entity.getMmEarlyStopping());
             dto.setMmShowEveryN(entity.getMmShowEveryN());
+            dto.setMmTimeBudgetMs(entity.getMmTimeBudgetMs());
+            dto.setMmConvergenceWindow(entity.getMmConvergenceWindow());
+            dto.setMmMinImprovementPerSecond(entity.getMmMinImprovementPerSecond());
+            dto.setMmStrategy(entity.getMmStrategy());
+            dto.setMmTemperature(entity.getMmTemperature());
+            dto.setMmTabuTenure(entity.getMmTabuTenure());
+            dto.setMmTabuCandidates(entity.getMmTabuCandidates());
+            dto.setMmConstructiveShare(entity.getMmConstructiveShare());
 
             // Boat Schedule settings
             dto.setBsSwapBoats(entity.getBsSwapBoats());
@@ -196,6 +332,16 @@ public class OptimizationConfigDto {
             dto.setBsIndividuals(entity.getBsIndividuals());
             dto.setBsEarlyStopping(entity.getBsEarlyStopping());
             dto.setBsShowEveryN(entity.getBsShowEveryN());
+            dto.setBsTimeBudgetMs(entity.getBsTimeBudgetMs());
+            dto.setBsConvergenceWindow(entity.getBsConvergenceWindow());
+            dto.setBsMinImprovementPerSecond(entity.getBsMinImprovementPerSecond());
+            dto.setBsStrategy(entity.getBsStrategy());
+            dto.setBsTemperature(entity.getBsTemperature());
+            dto.setBsTabuTenure(entity.getBsTabuTenure());
+            dto.setBsTabuCandidates(entity.getBsTabuCandidates());
+            dto.setBsAssignments(entity.getBsAssignments());
+
+            dto.setAutoTuneTargetMs(entity.getAutoTuneTargetMs());
 
             dto.setCreatedAt(entity.getCreatedAt());
             dto.setUpdatedAt(entity.getUpdatedAt());
@@ -28,6 +28,10 @@ public class OptimizationDto {
         private int totalIterations;
         private double currentScore;
         private double bestScore;
+        private Double worstScore;
+        private Double diversity;
+        private Double evaluationsPerSecond;
+        private Double allocatedBytesPerSecond;
         private String message;
         private Long tournamentId;
 
@@ -60,18 +64,35 @@ public class OptimizationDto {
                     .build();
         }
 
-        public static ProgressEvent progress(Long tournamentId, String phase, int iteration, int totalIterations, double currentScore, double bestScore) {
+        /**
+         * Progress of one branch of a phase. Metrics which are not finite (e.g. an unmeasured allocation rate) are
+         * sent as null.
+         */
+        public static ProgressEvent progress(Long tournamentId, String phase, int currentFlight, int totalFlights,
+                                             int iteration, int totalIterations, double currentScore, double bestScore,
+                                             double worstScore, double diversity, double evaluationsPerSecond,
+                                             double allocatedBytesPerSecond) {
             return ProgressEvent.builder()
                     .type(EventType.PROGRESS)
                     .tournamentId(tournamentId)
                     .phase(phase)
+                    .currentFlight(currentFlight)
+                    .totalFlights(totalFlights)
                     .iteration(iteration)
                     .totalIterations(totalIterations)
                     .currentScore(currentScore)
                     .bestScore(bestScore)
+                    .worstScore(finiteOrNull(worstScore))
+                    .diversity(finiteOrNull(diversity))
+                    .evaluationsPerSecond(finiteOrNull(evaluationsPerSecond))
+                    .allocatedBytesPerSecond(finiteOrNull(allocatedBytesPerSecond))
                     .build();
         }
 
+        private static Double finiteOrNull(double value) {
+            return Double.isFinite(value) ? value : null;
+        }
+
         public static ProgressEvent phaseCompleted(Long tournamentId, String phase, double bestScore) {
             return ProgressEvent.builder()
                     .type(EventType.PHASE_COMPLETED)
@@ -115,6 +115,9 @@ public class TournamentDto {
         private Integer savedShuttles;
         private Integer boatChanges;
         private Double finalScore;
+        private String optimizationParams;
+        private String stopReasons;
+        private Double optimalityGap;
         private Instant createdAt;
     }
 }
@@ -41,6 +41,14 @@ public class OptimizationConfigService {
         config.setMmIndividuals(dto.getMmIndividuals());
         config.setMmEarlyStopping(dto.getMmEarlyStopping());
         config.setMmShowEveryN(dto.getMmShowEveryN());
+        config.setMmTimeBudgetMs(dto.getMmTimeBudgetMs());
+        config.setMmConvergenceWindow(dto.getMmConvergenceWindow());
+        config.setMmMinImprovementPerSecond(dto.getMmMinImprovementPerSecond());
+        config.setMmStrategy(dto.getMmStrategy());
+        config.setMmTemperature(dto.getMmTemperature());
+        config.setMmTabuTenure(dto.getMmTabuTenure());
+        config.setMmTabuCandidates(dto.getMmTabuCandidates());
+        config.setMmConstructiveShare(dto.getMmConstructiveShare());
 
         // Boat Schedule settings
         config.setBsSwapBoats(dto.getBsSwapBoats());
@@ -52,6 +60,16 @@ public class OptimizationConfigService {
         config.setBsIndividuals(dto.getBsIndividuals());
         config.setBsEarlyStopping(dto.getBsEarlyStopping());
         config.setBsShowEveryN(dto.getBsShowEveryN());
+        config.setBsTimeBudgetMs(dto.getBsTimeBudgetMs());
+        config.setBsConvergenceWindow(dto.getBsConvergenceWindow());
+        config.setBsMinImprovementPerSecond(dto.getBsMinImprovementPerSecond());
+        config.setBsStrategy(dto.getBsStrategy());
+        config.setBsTemperature(dto.getBsTemperature());
+        config.setBsTabuTenure(dto.getBsTabuTenure());
+        config.setBsTabuCandidates(dto.getBsTabuCandidates());
+        config.setBsAssignments(dto.getBsAssignments());
+
+        config.setAutoTuneTargetMs(dto.getAutoTuneTargetMs());
 
         return repository.save(config);
     }
@@ -75,6 +93,14 @@ public class OptimizationConfigService {
         if (dto.getMmIndividuals() != null) config.setMmIndividuals(dto.getMmIndividuals());
         if (dto.getMmEarlyStopping() != null) config.setMmEarlyStopping(dto.getMmEarlyStopping());
         if (dto.getMmShowEveryN() != null) config.setMmShowEveryN(dto.getMmShowEveryN());
+        if (dto.getMmTimeBudgetMs() != null) config.setMmTimeBudgetMs(dto.getMmTimeBudgetMs());
+        if (dto.getMmConvergenceWindow() != null) config.setMmConvergenceWindow(dto.getMmConvergenceWindow());
+        if (dto.getMmMinImprovementPerSecond() != null) config.setMmMinImprovementPerSecond(dto.getMmMinImprovementPerSecond());
+        if (dto.getMmStrategy() != null) config.setMmStrategy(dto.getMmStrategy());
+        if (dto.getMmTemperature() != null) config.setMmTemperature(dto.getMmTemperature());
+        if (dto.getMmTabuTenure() != null) config.setMmTabuTenure(dto.getMmTabuTenure());
+        if (dto.getMmTabuCandidates() != null) config.setMmTabuCandidates(dto.getMmTabuCandidates());
+        if (dto.getMmConstructiveShare() != null) config.setMmConstructiveShare(dto.getMmConstructiveShare());
 
         if (dto.getBsSwapBoats() != null) config.setBsSwapBoats(dto.getBsSwapBoats());
         if (dto.getBsSwapRaces() != null) config.setBsSwapRaces(dto.getBsSwapRaces());
@@ -85,6 +111,16 @@ public class OptimizationConfigService {
         if (dto.getBsIndividuals() != null) config.setBsIndividuals(dto.getBsIndividuals());
         if (dto.getBsEarlyStopping() != null) config.setBsEarlyStopping(dto.getBsEarlyStopping());
         if (dto.getBsShowEveryN() != null) config.setBsShowEveryN(dto.getBsShowEveryN());
+        if (dto.getBsTimeBudgetMs() != null) config.setBsTimeBudgetMs(dto.getBsTimeBudgetMs());
+        if (dto.getBsConvergenceWindow() != null) config.setBsConvergenceWindow(dto.getBsConvergenceWindow());
+        if (dto.getBsMinImprovementPerSecond() != null) config.setBsMinImprovementPerSecond(dto.getBsMinImprovementPerSecond());
+        if (dto.getBsStrategy() != null) config.setBsStrategy(dto.getBsStrategy());
+        if (dto.getBsTemperature() != null) config.setBsTemperature(dto.getBsTemperature());
+        if (dto.getBsTabuTenure() != null) config.setBsTabuTenure(dto.getBsTabuTenure());
+        if (dto.getBsTabuCandidates() != null) config.setBsTabuCandidates(dto.getBsTabuCandidates());
+        if (dto.getBsAssignments() != null) config.setBsAssignments(dto.getBsAssignments());
+
+        if (dto.getAutoTuneTargetMs() != null) config.setAutoTuneTargetMs(dto.getAutoTuneTargetMs());
 
         return repository.save(config);
     }
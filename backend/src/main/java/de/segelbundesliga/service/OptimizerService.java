@@ -1,19 +1,26 @@
 package de.segelbundesliga.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import de.segelbundesliga.config.OptimizerProperties;
 import de.segelbundesliga.domain.Boat;
 import de.segelbundesliga.domain.Team;
 import de.segelbundesliga.domain.Tournament;
 import de.segelbundesliga.dto.OptimizationDto;
 import de.segelbundesliga.repository.TournamentRepository;
+import gundramleifert.pairing_list.AutoTuner;
 import gundramleifert.pairing_list.Optimizer;
+import gundramleifert.pairing_list.OptimizerListener;
+import gundramleifert.pairing_list.OptimizerProgress;
+import gundramleifert.pairing_list.StopSummary;
 import gundramleifert.pairing_list.configs.BoatConfig;
 import gundramleifert.pairing_list.configs.OptBoatConfig;
 import gundramleifert.pairing_list.configs.OptConfig;
 import gundramleifert.pairing_list.configs.OptMatchMatrixConfig;
 import gundramleifert.pairing_list.configs.OptimizationConfig;
 import gundramleifert.pairing_list.configs.ScheduleConfig;
+import gundramleifert.pairing_list.configs.Strategy;
 import gundramleifert.pairing_list.cost_calculators.CostCalculatorBoatSchedule;
+import gundramleifert.pairing_list.cost_calculators.MatchMatrixLowerBound;
 import gundramleifert.pairing_list.types.Schedule;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,7 +34,6 @@ import java.io.StringWriter;
 import java.lang.reflect.Field;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Service
@@ -38,6 +44,7 @@ public class OptimizerService {
     private final TournamentRepository tournamentRepository;
     private final ObjectMapper objectMapper;
     private final ScheduleCacheService scheduleCacheService;
+    private final OptimizerProperties optimizerProperties;
 
     // Active SSE emitters per tournament
     private final Map<Long, SseEmitter> activeEmitters = new ConcurrentHashMap<>();
@@ -45,6 +52,9 @@ public class OptimizerService {
     // Running optimizations
     private final Map<Long, Boolean> runningOptimizations = new ConcurrentHashMap<>();
 
+    // Optimizers of the running optimizations, to cancel them
+    private final Map<Long, Optimizer> runningOptimizers = new ConcurrentHashMap<>();
+
     public SseEmitter createEmitter(Long tournamentId) {
         // No timeout - optimization may take a while
         SseEmitter emitter = new SseEmitter(0L);
@@ -72,8 +82,16 @@ public class OptimizerService {
         return runningOptimizations.getOrDefault(tournamentId, false);
     }
 
+    /**
+     * Lets a running optimization stop at its next generation. It ends like a run out of time, then its schedule is
+     * discarded and the tournament is set back to ready.
+     */
     public void cancelOptimization(Long tournamentId) {
         runningOptimizations.put(tournamentId, false);
+        Optimizer optimizer = runningOptimizers.get(tournamentId);
+        if (optimizer != null) {
+            optimizer.cancel();
+        }
     }
 
     @Async("optimizerExecutor")
@@ -121,6 +139,8 @@ public class OptimizerService {
             // Build configs from entities
             ScheduleConfig scheduleConfig = buildScheduleConfig(tournament);
             OptimizationConfig optimizationConfig = buildOptimizationConfig(tournament.getOptimizationConfig());
+            sizeOptimization(tournamentId, scheduleConfig, optimizationConfig,
+                    tournament.getOptimizationConfig().getAutoTuneTargetMs());
 
             // Update status
             tournament.setStatus(Tournament.TournamentStatus.OPTIMIZING);
@@ -129,42 +149,36 @@ public class OptimizerService {
             sendEvent(tournamentId, OptimizationDto.ProgressEvent.started(tournamentId, scheduleConfig.flights));
 
             // Initialize optimizer
-            Random random = new Random(optimizationConfig.seed);
             Optimizer optimizer = new Optimizer();
-            optimizer.init(scheduleConfig, optimizationConfig, random);
+            optimizer.init(scheduleConfig, optimizationConfig);
+            optimizer.addListener(progressListener(tournamentId, scheduleConfig.flights));
+            StopSummary stopSummary = new StopSummary();
+            optimizer.addListener(stopSummary);
+            OptimalityGap optimalityGap = new OptimalityGap();
+            optimizer.addListener(optimalityGap);
+            runningOptimizers.put(tournamentId, optimizer);
+            if (!isRunning(tournamentId)) {
+                // cancelled before the optimizer was registered
+                optimizer.cancel();
+            }
 
             // Phase 1: Match Matrix Optimization
             sendEvent(tournamentId, OptimizationDto.ProgressEvent.phaseStarted(
                     tournamentId, "MATCH_MATRIX", 1, scheduleConfig.flights));
 
-            Schedule schedule = optimizer.optimizeMatchMatrix(s -> {
-                if (!runningOptimizations.getOrDefault(tournamentId, false)) {
-                    throw new OptimizationCancelledException("Optimization cancelled");
-                }
-                // Progress callback during match matrix optimization
-                sendEvent(tournamentId, OptimizationDto.ProgressEvent.progress(
-                        tournamentId, "MATCH_MATRIX", 0, 0, 0, 0));
-            });
-
-            sendEvent(tournamentId, OptimizationDto.ProgressEvent.phaseCompleted(
-                    tournamentId, "MATCH_MATRIX", 0));
+            Schedule schedule = optimizer.optimizeMatchMatrix(null);
 
             // Phase 2: Boat Schedule Optimization
-            if (optimizationConfig.optBoatUsage != null && optimizationConfig.optBoatUsage.loops > 0) {
+            if (!optimizer.isCancelled()
+                    && optimizationConfig.optBoatUsage != null && optimizationConfig.optBoatUsage.maxLoops() > 0) {
                 sendEvent(tournamentId, OptimizationDto.ProgressEvent.phaseStarted(
                         tournamentId, "BOAT_SCHEDULE", scheduleConfig.flights, scheduleConfig.flights));
 
-                schedule = gundramleifert.pairing_list.Util.shuffleBoats(schedule, random);
-                schedule = optimizer.optimizeBoatSchedule(schedule, s -> {
-                    if (!runningOptimizations.getOrDefault(tournamentId, false)) {
-                        throw new OptimizationCancelledException("Optimization cancelled");
-                    }
-                    sendEvent(tournamentId, OptimizationDto.ProgressEvent.progress(
-                            tournamentId, "BOAT_SCHEDULE", 0, 0, 0, 0));
-                });
-
-                sendEvent(tournamentId, OptimizationDto.ProgressEvent.phaseCompleted(
-                        tournamentId, "BOAT_SCHEDULE", 0));
+                schedule = optimizer.shuffleBoats(schedule);
+                schedule = optimizer.optimizeBoatSchedule(schedule, null);
+            }
+            if (optimizer.isCancelled()) {
+                throw new OptimizationCancelledException("Optimization cancelled");
             }
 
             // Calculate statistics
@@ -188,7 +202,10 @@ public class OptimizerService {
                     computationTime,
                     savedShuttlesHarbour + savedShuttlesSea,
                     boatChanges,
-                    null  // Score calculation from optimizer is complex, not needed for caching
+                    null,  // Score calculation from optimizer is complex, not needed for caching
+                    objectMapper.writeValueAsString(optimizationConfig),
+                    stopSummary.isEmpty() ? null : stopSummary.toString(),
+                    optimalityGap.gap
             );
 
             // Step 4: Link tournament to schedule
@@ -212,10 +229,71 @@ public class OptimizerService {
 
         } finally {
             runningOptimizations.remove(tournamentId);
+            runningOptimizers.remove(tournamentId);
             completeEmitter(tournamentId);
         }
     }
 
+    /**
+     * Auto-tunes the optimization parameters if a target run time is given and refuses configurations whose
+     * populations exceed the configured memory budget.
+     */
+    private void sizeOptimization(Long tournamentId, ScheduleConfig scheduleConfig,
+                                  OptimizationConfig optimizationConfig, Long autoTuneTargetMs) {
+        AutoTuner tuner = new AutoTuner(scheduleConfig);
+        long memoryBudget = optimizerProperties.getMemoryBudgetMb() * 1024L * 1024L;
+        if (autoTuneTargetMs != null) {
+            AutoTuner.Result result = tuner.tune(optimizationConfig, autoTuneTargetMs, memoryBudget);
+            log.info("Auto-tuned optimization for tournament {}: {}", tournamentId, result);
+        } else {
+            tuner.checkMemory(optimizationConfig, memoryBudget);
+        }
+    }
+
+    /**
+     * Keeps the optimality gap the optimizer reports at the end of the match matrix phase.
+     */
+    private static class OptimalityGap implements OptimizerListener {
+        private Double gap;
+
+        @Override
+        public void optimalityGap(Phase phase, double bestScore, double lowerBound) {
+            gap = MatchMatrixLowerBound.gap(bestScore, lowerBound);
+        }
+    }
+
+    /**
+     * Forwards the sampled progress of the optimizer as SSE events. The best score is the best one of all branches
+     * of the current flight, the current score the best one of the reporting branch.
+     */
+    private OptimizerListener progressListener(Long tournamentId, int totalFlights) {
+        return new OptimizerListener() {
+            private double flightBest = Double.POSITIVE_INFINITY;
+
+            @Override
+            public void flightStarted(Phase phase, int flight) {
+                flightBest = Double.POSITIVE_INFINITY;
+            }
+
+            @Override
+            public void progress(OptimizerProgress progress) {
+                flightBest = Math.min(flightBest, progress.bestScore);
+                sendEvent(tournamentId, OptimizationDto.ProgressEvent.progress(
+                        tournamentId, progress.phase.name(), progress.flight + 1, totalFlights,
+                        progress.generation + 1, progress.generations, progress.bestScore, flightBest,
+                        progress.worstScore, progress.diversity,
+                        progress.evaluationsPerSecond, progress.allocatedBytesPerSecond));
+            }
+
+            @Override
+            public void phaseCompleted(Phase phase, Schedule best, double bestScore) {
+                flightBest = Double.POSITIVE_INFINITY;
+                sendEvent(tournamentId, OptimizationDto.ProgressEvent.phaseCompleted(
+                        tournamentId, phase.name(), bestScore));
+            }
+        };
+    }
+
     private ScheduleConfig buildScheduleConfig(Tournament tournament) {
         ScheduleConfig config = new ScheduleConfig();
 
@@ -266,6 +344,29 @@ public class OptimizerService {
         config.optMatchMatrix.individuals = settings.getMmIndividuals();
         config.optMatchMatrix.earlyStopping = settings.getMmEarlyStopping();
         config.optMatchMatrix.showEveryN = settings.getMmShowEveryN();
+        config.optMatchMatrix.threads = optimizerProperties.getThreads();
+        config.optMatchMatrix.timeBudgetMillis = timeBudget(settings.getMmTimeBudgetMs());
+        if (settings.getMmConvergenceWindow() != null) {
+            config.optMatchMatrix.convergenceWindow = settings.getMmConvergenceWindow();
+        }
+        if (settings.getMmMinImprovementPerSecond() != null) {
+            config.optMatchMatrix.minImprovementPerSecond = settings.getMmMinImprovementPerSecond();
+        }
+        if (settings.getMmStrategy() != null) {
+            config.optMatchMatrix.strategy = Strategy.valueOf(settings.getMmStrategy().name());
+        }
+        if (settings.getMmTemperature() != null) {
+            config.optMatchMatrix.temperature = settings.getMmTemperature();
+        }
+        if (settings.getMmTabuTenure() != null) {
+            config.optMatchMatrix.tabuTenure = settings.getMmTabuTenure();
+        }
+        if (settings.getMmTabuCandidates() != null) {
+            config.optMatchMatrix.tabuCandidates = settings.getMmTabuCandidates();
+        }
+        if (settings.getMmConstructiveShare() != null) {
+            config.optMatchMatrix.constructiveShare = settings.getMmConstructiveShare();
+        }
 
         // BoatUsage config
         config.optBoatUsage = createOptBoatConfig();
@@ -278,10 +379,36 @@ public class OptimizerService {
         config.optBoatUsage.individuals = settings.getBsIndividuals();
         config.optBoatUsage.earlyStopping = settings.getBsEarlyStopping();
         config.optBoatUsage.showEveryN = settings.getBsShowEveryN();
+        config.optBoatUsage.timeBudgetMillis = timeBudget(settings.getBsTimeBudgetMs());
+        if (settings.getBsConvergenceWindow() != null) {
+            config.optBoatUsage.convergenceWindow = settings.getBsConvergenceWindow();
+        }
+        if (settings.getBsMinImprovementPerSecond() != null) {
+            config.optBoatUsage.minImprovementPerSecond = settings.getBsMinImprovementPerSecond();
+        }
+        if (settings.getBsStrategy() != null) {
+            config.optBoatUsage.strategy = Strategy.valueOf(settings.getBsStrategy().name());
+        }
+        if (settings.getBsTemperature() != null) {
+            config.optBoatUsage.temperature = settings.getBsTemperature();
+        }
+        if (settings.getBsTabuTenure() != null) {
+            config.optBoatUsage.tabuTenure = settings.getBsTabuTenure();
+        }
+        if (settings.getBsTabuCandidates() != null) {
+            config.optBoatUsage.tabuCandidates = settings.getBsTabuCandidates();
+        }
+        if (settings.getBsAssignments() != null) {
+            config.optBoatUsage.assignments = settings.getBsAssignments();
+        }
 
         return config;
     }
 
+    private static long timeBudget(Long millis) {
+        return millis == null ? -1 : millis;
+    }
+
     private OptMatchMatrixConfig createOptMatchMatrixConfig() {
         try {
             var constructor = OptMatchMatrixConfig.class.getDeclaredConstructor();
@@ -54,7 +54,8 @@ public class ScheduleCacheService {
     @Transactional
     public Schedule saveSchedule(String configHash, Tournament tournament,
                                  String scheduleJson, Long computationTimeMs,
-                                 Integer savedShuttles, Integer boatChanges, Double finalScore) {
+                                 Integer savedShuttles, Integer boatChanges, Double finalScore,
+                                 String optimizationParams, String stopReasons, Double optimalityGap) {
         Schedule schedule = new Schedule();
         schedule.setConfigHash(configHash);
         schedule.setNumTeams(tournament.getTeams().size());
@@ -65,6 +66,9 @@ public class ScheduleCacheService {
         schedule.setSavedShuttles(savedShuttles);
         schedule.setBoatChanges(boatChanges);
         schedule.setFinalScore(finalScore);
+        schedule.setOptimizationParams(optimizationParams);
+        schedule.setStopReasons(stopReasons);
+        schedule.setOptimalityGap(optimalityGap);
 
         return scheduleRepository.save(schedule);
     }
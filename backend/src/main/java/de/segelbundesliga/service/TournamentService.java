@@ -233,6 +233,9 @@ public class TournamentService {
         dto.setSavedShuttles(schedule.getSavedShuttles());
         dto.setBoatChanges(schedule.getBoatChanges());
         dto.setFinalScore(schedule.getFinalScore());
+        dto.setOptimizationParams(schedule.getOptimizationParams());
+        dto.setStopReasons(schedule.getStopReasons());
+        dto.setOptimalityGap(schedule.getOptimalityGap());
         dto.setCreatedAt(schedule.getCreatedAt());
         return dto;
     }
@@ -56,6 +56,14 @@ export interface OptimizationConfig {
   mmIndividuals: number;
   mmEarlyStopping: number;
   mmShowEveryN: number;
+  mmTimeBudgetMs?: number;
+  mmConvergenceWindow?: number;
+  mmMinImprovementPerSecond?: number;
+  mmStrategy?: 'GENETIC' | 'SIMULATED_ANNEALING' | 'TABU_SEARCH';
+  mmTemperature?: number;
+  mmTabuTenure?: number;
+  mmTabuCandidates?: number;
+  mmConstructiveShare?: number;
   // Boat Schedule settings
   bsSwapBoats: number;
   bsSwapRaces: number;
@@ -66,6 +74,15 @@ export interface OptimizationConfig {
   bsIndividuals: number;
   bsEarlyStopping: number;
   bsShowEveryN: number;
+  bsTimeBudgetMs?: number;
+  bsConvergenceWindow?: number;
+  bsMinImprovementPerSecond?: number;
+  bsStrategy?: 'GENETIC' | 'SIMULATED_ANNEALING' | 'TABU_SEARCH';
+  bsTemperature?: number;
+  bsTabuTenure?: number;
+  bsTabuCandidates?: number;
+  bsAssignments?: number;
+  autoTuneTargetMs?: number;
   createdAt: string;
   updatedAt: string;
 }
@@ -91,6 +108,9 @@ export interface Schedule {
   savedShuttles: number;
   boatChanges: number;
   finalScore: number;
+  optimizationParams?: string;
+  stopReasons?: string;
+  optimalityGap?: number;
   createdAt: string;
 }
 
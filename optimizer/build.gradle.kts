@@ -27,3 +27,23 @@ dependencies {
     testImplementation("org.junit.jupiter:junit-jupiter:5.10.1")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
+
+// the SIMD kernel of the match matrix scoring uses the incubating Vector API. It has its own source set, so only it
+// is compiled with the module - without the warning that the module is incubating - and the rest of the build stays
+// clean. It ships in the jar, but is only loaded if the JVM is started with --add-modules jdk.incubator.vector,
+// otherwise the scalar kernel is used.
+val vector by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+}
+
+tasks.named<JavaCompile>(vector.compileJavaTaskName) {
+    options.compilerArgs.addAll(listOf("--add-modules", "jdk.incubator.vector", "-nowarn"))
+}
+
+tasks.jar {
+    from(vector.output)
+}
+
+sourceSets.test {
+    runtimeClasspath += vector.output
+}
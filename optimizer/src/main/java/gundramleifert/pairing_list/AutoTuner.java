@@ -0,0 +1,250 @@
+package gundramleifert.pairing_list;
+
+import gundramleifert.pairing_list.configs.OptBoatConfig;
+import gundramleifert.pairing_list.configs.OptMatchMatrixConfig;
+import gundramleifert.pairing_list.configs.OptimizationConfig;
+import gundramleifert.pairing_list.configs.ScheduleConfig;
+import gundramleifert.pairing_list.configs.Strategy;
+import gundramleifert.pairing_list.cost_calculators.BoatScheduleCosts;
+import gundramleifert.pairing_list.cost_calculators.CostCalculatorBoatSchedule;
+import gundramleifert.pairing_list.cost_calculators.CostCalculatorMatchMatrix;
+import gundramleifert.pairing_list.types.BoatSwap;
+import gundramleifert.pairing_list.types.Flight;
+import gundramleifert.pairing_list.types.FlightUndoLog;
+import gundramleifert.pairing_list.types.PackedSchedule;
+import gundramleifert.pairing_list.types.Schedule;
+import gundramleifert.pairing_list.types.TeamSet;
+import gundramleifert.pairing_list.types.TeamSwap;
+
+import java.util.SplittableRandom;
+
+/**
+ * Sizes {@code loops}, {@code individuals} and the swap counts of an {@link OptimizationConfig} for a schedule
+ * configuration and a target run time.
+ * <p>
+ * A short calibration run measures the time of one incremental evaluation - a mutation scored against its parent as
+ * in the GAs - of both phases. The match matrix evaluation is measured on a schedule with half of the flights, as
+ * an average over the flights. From the evaluations that fit into the target time, the population is sized so that
+ * every individual is selected as parent about {@link #SELECTIONS_PER_INDIVIDUAL} times, and the remaining budget
+ * goes into loops.
+ * <p>
+ * The memory of the populations is estimated from the schedule size. Configurations exceeding the memory budget
+ * are shrunk to fit or, if even the smallest population does not fit, refused.
+ */
+public class AutoTuner {
+
+    public static final int MIN_INDIVIDUALS = 20;
+    public static final int MAX_INDIVIDUALS = 400;
+    public static final int SELECTIONS_PER_INDIVIDUAL = 200;
+    /**
+     * share of the target time given to the match matrix phase
+     */
+    public static final double MATCH_MATRIX_SHARE = 0.75;
+
+    private static final int CALIBRATION_EVALUATIONS = 20000;
+    private static final long SEED = 0x5DEECE66DL;
+
+    private final ScheduleConfig properties;
+    // keeps the JIT from eliminating the calibrated evaluations
+    private volatile double sink;
+
+    public AutoTuner(ScheduleConfig properties) {
+        this.properties = properties;
+    }
+
+    public static class Calibration {
+        public final double matchMatrixNanosPerEvaluation;
+        public final double boatNanosPerEvaluation;
+
+        public Calibration(double matchMatrixNanosPerEvaluation, double boatNanosPerEvaluation) {
+            this.matchMatrixNanosPerEvaluation = matchMatrixNanosPerEvaluation;
+            this.boatNanosPerEvaluation = boatNanosPerEvaluation;
+        }
+    }
+
+    public static class Result {
+        public final Calibration calibration;
+        public final long estimatedMillis;
+        public final long estimatedBytes;
+
+        public Result(Calibration calibration, long estimatedMillis, long estimatedBytes) {
+            this.calibration = calibration;
+            this.estimatedMillis = estimatedMillis;
+            this.estimatedBytes = estimatedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("estimated %d ms, %.1f MB (%.0f ns per match matrix, %.0f ns per boat evaluation)",
+                    estimatedMillis, estimatedBytes / 1e6,
+                    calibration.matchMatrixNanosPerEvaluation, calibration.boatNanosPerEvaluation);
+        }
+    }
+
+    /**
+     * Calibrates and overwrites loops, individuals and swap counts of both phases of {@code config}, so that the
+     * run takes about {@code targetMillis}. Branches, islands and threads are kept.
+     *
+     * @throws IllegalArgumentException if the populations do not fit into {@code memoryBudgetBytes}
+     */
+    public Result tune(OptimizationConfig config, long targetMillis, long memoryBudgetBytes) {
+        Calibration calibration = calibrate(config);
+        OptMatchMatrixConfig mm = config.optMatchMatrix;
+        int populations = populationsPerFlight(mm);
+        double parallel = Math.max(1, Math.min(mm.threads, populations));
+        double mmEvaluations = targetMillis * 1e6 * MATCH_MATRIX_SHARE * parallel
+                / calibration.matchMatrixNanosPerEvaluation / Math.max(1, properties.flights - 1) / populations;
+        int mmIndividuals = individuals(mmEvaluations, maxIndividuals(memoryBudgetBytes, populations, matchMatrixBytes()));
+        mm.individuals = mmIndividuals;
+        mm.swapTeams = swaps(mmIndividuals);
+        mm.loops = Math.max(1, (int) Math.min(Integer.MAX_VALUE,
+                mmEvaluations / mm.swapTeams / SearchStrategy.evaluationsPerStep(mm)));
+
+        OptBoatConfig bs = config.optBoatUsage;
+        double bsEvaluations = targetMillis * 1e6 * (1 - MATCH_MATRIX_SHARE) / calibration.boatNanosPerEvaluation;
+        int bsIndividuals = individuals(bsEvaluations, maxIndividuals(memoryBudgetBytes, 1, boatBytes()));
+        bs.individuals = bsIndividuals;
+        int swaps = swaps(bsIndividuals);
+        bs.swapBoats = Math.max(1, swaps / 2);
+        bs.swapRaces = Math.max(1, swaps - bs.swapBoats);
+        bs.loops = Math.max(1, (int) Math.min(Integer.MAX_VALUE,
+                bsEvaluations / (bs.swapBoats + bs.swapRaces) / SearchStrategy.evaluationsPerStep(bs)));
+
+        return new Result(calibration, estimateMillis(config, calibration), estimateBytes(config));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the populations of {@code config} do not fit into {@code memoryBudgetBytes}
+     */
+    public void checkMemory(OptimizationConfig config, long memoryBudgetBytes) {
+        long bytes = estimateBytes(config);
+        if (bytes > memoryBudgetBytes) {
+            throw new IllegalArgumentException(String.format(
+                    "populations need about %.1f MB, which exceeds the memory budget of %.1f MB",
+                    bytes / 1e6, memoryBudgetBytes / 1e6));
+        }
+    }
+
+    public long estimateMillis(OptimizationConfig config, Calibration calibration) {
+        OptMatchMatrixConfig mm = config.optMatchMatrix;
+        int populations = populationsPerFlight(mm);
+        double parallel = Math.max(1, Math.min(mm.threads, populations));
+        double mmNanos = (double) Math.max(1, properties.flights - 1) * populations * mm.loops * mm.swapTeams
+                * SearchStrategy.evaluationsPerStep(mm) * calibration.matchMatrixNanosPerEvaluation / parallel;
+        OptBoatConfig bs = config.optBoatUsage;
+        double bsNanos = (double) bs.loops * (bs.swapBoats + bs.swapRaces) * SearchStrategy.evaluationsPerStep(bs)
+                * calibration.boatNanosPerEvaluation;
+        return (long) ((mmNanos + bsNanos) / 1e6);
+    }
+
+    /**
+     * @return the estimated size of the larger of the two phases' populations
+     */
+    public long estimateBytes(OptimizationConfig config) {
+        long mm = (long) populationsPerFlight(config.optMatchMatrix) * config.optMatchMatrix.individuals * matchMatrixBytes();
+        long bs = (long) config.optBoatUsage.individuals * boatBytes();
+        return Math.max(mm, bs);
+    }
+
+    public Calibration calibrate(OptimizationConfig config) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        // the first round warms up the JIT
+        calibrateMatchMatrix(config.optMatchMatrix, random);
+        double mm = calibrateMatchMatrix(config.optMatchMatrix, random);
+        calibrateBoats(config.optBoatUsage, random);
+        double bs = calibrateBoats(config.optBoatUsage, random);
+        return new Calibration(mm, bs);
+    }
+
+    private double calibrateMatchMatrix(OptMatchMatrixConfig optMatchMatrix, SplittableRandom random) {
+        Schedule schedule = new Schedule(properties);
+        for (int f = 0; f < Math.max(2, (properties.flights + 1) / 2); f++) {
+            schedule.add(Util.getRandomFlight(properties, random));
+        }
+        CostCalculatorMatchMatrix scorer = new CostCalculatorMatchMatrix(properties, optMatchMatrix);
+        double parentScore = scorer.scoreWithCache(schedule);
+        MatchMatrix parentMatrix = schedule.getMatchMatrix();
+        Flight flight = schedule.lastFlight();
+        FlightUndoLog undo = new FlightUndoLog();
+        double sum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < CALIBRATION_EVALUATIONS; i++) {
+            undo.record(flight);
+            TeamSwap swap = MutationUtil.swapBetweenRaces(schedule, random);
+            sum += scorer.scoreSwap(parentScore, parentMatrix, swap, flight).getScore();
+            undo.revert();
+        }
+        long nanos = System.nanoTime() - start;
+        sink = sum;
+        return Math.max(1.0, nanos / (double) CALIBRATION_EVALUATIONS);
+    }
+
+    private double calibrateBoats(OptBoatConfig optBoatUsage, SplittableRandom random) {
+        Schedule schedule = Util.shuffleBoats(Util.getRandomSchedule(properties, random), random);
+        PackedSchedule packed = PackedSchedule.of(schedule);
+        Zobrist zobrist = new Zobrist(packed.flights, packed.races, packed.boats, properties.numTeams);
+        packed.setZobristHash(zobrist.hash(packed));
+        CostCalculatorBoatSchedule scorer = new CostCalculatorBoatSchedule(properties, optBoatUsage);
+        scorer.score(packed);
+        BoatScheduleCosts scratch = null;
+        double sum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < CALIBRATION_EVALUATIONS; i++) {
+            BoatSwap swap = MutationUtil.randomBoatSwap(packed, random);
+            MutationUtil.swapBoatsInPlace(packed, swap, zobrist);
+            scratch = scorer.scoreBoatSwap(packed, swap, scratch);
+            sum += scratch.getTotal();
+            MutationUtil.swapBoatsInPlace(packed, swap, zobrist);
+        }
+        long nanos = System.nanoTime() - start;
+        sink = sum;
+        return Math.max(1.0, nanos / (double) CALIBRATION_EVALUATIONS);
+    }
+
+    private static int populationsPerFlight(OptMatchMatrixConfig mm) {
+        // islands only exist in the GA
+        return Math.max(1, mm.maxBranches) * (mm.strategy == Strategy.GENETIC ? Math.max(1, mm.islands) : 1);
+    }
+
+    private static int individuals(double evaluations, int maxIndividuals) {
+        long individuals = Math.round(evaluations / SELECTIONS_PER_INDIVIDUAL);
+        return (int) Math.max(MIN_INDIVIDUALS, Math.min(Math.min(MAX_INDIVIDUALS, maxIndividuals), individuals));
+    }
+
+    private static int maxIndividuals(long memoryBudgetBytes, int populations, long bytesPerIndividual) {
+        long max = memoryBudgetBytes / ((long) populations * bytesPerIndividual);
+        if (max < MIN_INDIVIDUALS) {
+            throw new IllegalArgumentException(String.format(
+                    "%d populations of %d individuals need about %.1f MB, which exceeds the memory budget of %.1f MB",
+                    populations, MIN_INDIVIDUALS, (double) populations * MIN_INDIVIDUALS * bytesPerIndividual / 1e6,
+                    memoryBudgetBytes / 1e6));
+        }
+        return (int) Math.min(Integer.MAX_VALUE, max);
+    }
+
+    /**
+     * one mutant per 50 individuals and generation, so a generation ages the population about equally
+     */
+    private static int swaps(int individuals) {
+        return Math.max(1, Math.round(individuals / 50f));
+    }
+
+    /**
+     * an individual of the match matrix GA: its last flight, its slot in the flight vector and its materialized
+     * match matrix (triangle of cells plus participants)
+     */
+    long matchMatrixBytes() {
+        int teams = properties.numTeams;
+        int races = properties.getRaces();
+        return 256 + races * (48L + properties.numBoats) + (long) teams * (teams - 1) / 2 + 4L * teams;
+    }
+
+    /**
+     * an individual of the boat GA: the packed teams, the team bitmasks of each race and the cost parts per flight
+     */
+    long boatBytes() {
+        long positions = (long) properties.flights * properties.getRaces();
+        return 256 + positions * properties.numBoats + positions * TeamSet.words(properties.numTeams) * 8L
+                + properties.flights * 64L;
+    }
+}
@@ -0,0 +1,86 @@
+package gundramleifert.pairing_list;
+
+import gundramleifert.pairing_list.cost_calculators.ICostCalculator;
+import gundramleifert.pairing_list.types.Schedule;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Selects the schedules that are expanded in the next flight of {@link Optimizer#optimizeMatchMatrix}.
+ * The candidates of all branches are merged into a bounded max-heap which keeps the best {@code width}
+ * distinct schedules. Schedules with equal costs are ordered by their rank inside their own branch and then by
+ * the branch index, so ties are spread over as many branches as possible instead of being cut at random.
+ */
+public class BeamSearch {
+
+    private static final double EPS = 1e-5;
+
+    private static class Candidate {
+        private final Schedule schedule;
+        private final double score;
+        private final int rank;
+        private final int branch;
+
+        private Candidate(Schedule schedule, double score, int rank, int branch) {
+            this.schedule = schedule;
+            this.score = score;
+            this.rank = rank;
+            this.branch = branch;
+        }
+    }
+
+    private static final Comparator<Candidate> BEST_FIRST = (c1, c2) -> {
+        if (Math.abs(c1.score - c2.score) >= EPS) {
+            return Double.compare(c1.score, c2.score);
+        }
+        if (c1.rank != c2.rank) {
+            return Integer.compare(c1.rank, c2.rank);
+        }
+        return Integer.compare(c1.branch, c2.branch);
+    };
+
+    /**
+     * @param branches the candidates of each branch, sorted ascending by their costs
+     * @param scorer   the cost calculator the candidates are sorted with
+     * @param width    the maximal number of schedules to keep
+     * @return the kept schedules, best first
+     */
+    public static List<Schedule> select(List<List<Schedule>> branches, ICostCalculator scorer, int width) {
+        width = Math.max(1, width);
+        PriorityQueue<Candidate> heap = new PriorityQueue<>(width + 1, BEST_FIRST.reversed());
+        Set<Schedule> kept = new HashSet<>();
+        for (int branch = 0; branch < branches.size(); branch++) {
+            List<Schedule> candidates = branches.get(branch);
+            int rank = 0;
+            for (Schedule schedule : candidates) {
+                if (kept.contains(schedule)) {
+                    continue;
+                }
+                Candidate candidate = new Candidate(schedule, scorer.scoreWithCache(schedule), rank++, branch);
+                if (heap.size() < width) {
+                    heap.add(candidate);
+                    kept.add(schedule);
+                } else if (BEST_FIRST.compare(candidate, heap.peek()) < 0) {
+                    kept.remove(heap.poll().schedule);
+                    heap.add(candidate);
+                    kept.add(schedule);
+                } else {
+                    // candidates of a branch are sorted - all following ones are at least as bad
+                    break;
+                }
+            }
+        }
+        List<Candidate> best = new ArrayList<>(heap);
+        best.sort(BEST_FIRST);
+        List<Schedule> res = new ArrayList<>(best.size());
+        for (Candidate candidate : best) {
+            res.add(candidate.schedule);
+        }
+        return res;
+    }
+}
@@ -0,0 +1,112 @@
+package gundramleifert.pairing_list;
+
+import gundramleifert.pairing_list.cost_calculators.BoatScheduleCosts;
+import gundramleifert.pairing_list.cost_calculators.CostCalculatorBoatSchedule;
+import gundramleifert.pairing_list.types.BoatSwap;
+import gundramleifert.pairing_list.types.PackedSchedule;
+import gundramleifert.pairing_list.types.RaceSwap;
+
+import java.util.SplittableRandom;
+
+/**
+ * Boat swaps and race swaps of a packed schedule, like the mutations of the boat schedule GA. A boat swap is drawn
+ * with probability {@code swapBoats / (swapBoats + swapRaces)}.
+ */
+class BoatScheduleNeighborhood implements Neighborhood<PackedSchedule> {
+
+    private static final long RACE_SWAP = 1L << 40;
+
+    private final PackedSchedule working;
+    private final CostCalculatorBoatSchedule scorer;
+    private final Zobrist zobrist;
+    private final double boatSwapShare;
+    private BoatSwap boatSwap;
+    private RaceSwap raceSwap;
+    private BoatScheduleCosts pending;
+    private BoatScheduleCosts scratch;
+
+    /**
+     * @param working a schedule which belongs to the neighborhood from now on, with its Zobrist hash set
+     */
+    BoatScheduleNeighborhood(PackedSchedule working, CostCalculatorBoatSchedule scorer, Zobrist zobrist,
+                             int swapBoats, int swapRaces) {
+        this.working = working;
+        this.scorer = scorer;
+        this.zobrist = zobrist;
+        this.boatSwapShare = swapBoats + swapRaces > 0 ? swapBoats / (double) (swapBoats + swapRaces) : 1;
+        scorer.score(working);
+    }
+
+    @Override
+    public double costs() {
+        return working.getBoatScheduleCosts().getTotal();
+    }
+
+    @Override
+    public long randomMove(SplittableRandom random) {
+        if (working.races < 2 || random.nextDouble() < boatSwapShare) {
+            BoatSwap swap = MutationUtil.randomBoatSwap(working, random);
+            return encode(swap.flight, swap.race, Math.min(swap.boat1, swap.boat2), Math.max(swap.boat1, swap.boat2));
+        }
+        RaceSwap swap = MutationUtil.randomRaceSwap(working, random);
+        return RACE_SWAP | encode(swap.flight, 0, Math.min(swap.race1, swap.race2), Math.max(swap.race1, swap.race2));
+    }
+
+    private static long encode(int flight, int race, int a, int b) {
+        return (long) flight << 24 | race << 16 | a << 8 | b;
+    }
+
+    @Override
+    public double apply(long move, double bound) {
+        int flight = (int) (move >>> 24) & 0xFFFF;
+        int a = (int) (move >>> 8) & 0xFF;
+        int b = (int) move & 0xFF;
+        if ((move & RACE_SWAP) != 0) {
+            raceSwap = new RaceSwap(flight, a, b);
+            MutationUtil.swapRacesInPlace(working, raceSwap, zobrist);
+            pending = scorer.scoreRaceSwap(working, raceSwap, scratch, bound);
+        } else {
+            boatSwap = new BoatSwap(flight, (int) (move >>> 16) & 0xFF, a, b);
+            MutationUtil.swapBoatsInPlace(working, boatSwap, zobrist);
+            pending = scorer.scoreBoatSwap(working, boatSwap, scratch, bound);
+        }
+        return pending.getTotal();
+    }
+
+    @Override
+    public void accept() {
+        if (!pending.isComplete()) {
+            throw new IllegalStateException("a move scored above its bound cannot be accepted");
+        }
+        scratch = working.getBoatScheduleCosts();
+        working.setBoatScheduleCosts(pending);
+        pending = null;
+        boatSwap = null;
+        raceSwap = null;
+    }
+
+    @Override
+    public void reject() {
+        // applying a swap a second time reverts it
+        if (raceSwap != null) {
+            MutationUtil.swapRacesInPlace(working, raceSwap, zobrist);
+        } else {
+            MutationUtil.swapBoatsInPlace(working, boatSwap, zobrist);
+        }
+        scratch = pending;
+        pending = null;
+        boatSwap = null;
+        raceSwap = null;
+    }
+
+    @Override
+    public PackedSchedule snapshot() {
+        // the costs are not shared, the working costs are recycled by later moves
+        return working.copy();
+    }
+
+    @Override
+    public long hash(PackedSchedule snapshot) {
+        return snapshot.getZobristHash();
+    }
+}
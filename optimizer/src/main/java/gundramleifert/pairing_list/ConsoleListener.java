@@ -0,0 +1,78 @@
+package gundramleifert.pairing_list;
+
+import gundramleifert.pairing_list.configs.OptConfig;
+import gundramleifert.pairing_list.cost_calculators.MatchMatrixLowerBound;
+import gundramleifert.pairing_list.types.BoatMatrix;
+import gundramleifert.pairing_list.types.Schedule;
+
+import java.util.List;
+
+import static gundramleifert.pairing_list.cost_calculators.CostCalculatorBoatSchedule.getInterFlightStat;
+
+/**
+ * Prints the progress of an {@link Optimizer} run to the console.
+ */
+public class ConsoleListener implements OptimizerListener {
+
+    @Override
+    public void phaseStarted(Phase phase, OptConfig config) {
+        if (phase == Phase.MATCH_MATRIX) {
+            System.out.println(String.format("match matrix kernel: %s", MatchMatrixKernel.get().getName()));
+        }
+        System.out.println(String.format("run with %s", config));
+    }
+
+    @Override
+    public void flightStarted(Phase phase, int flight) {
+        System.out.println(String.format("###### Flight %d ######", flight + 1));
+    }
+
+    @Override
+    public void progress(OptimizerProgress progress) {
+        String generations = progress.generations > 0 ? "/" + progress.generations : "";
+        System.out.println(String.format("flight %d branch %d generation %d%s: costs = %.3f .. %.3f, diversity = %.2f, %.0f evaluations/s, %.1f MB/s allocated",
+                progress.flight + 1, progress.branch, progress.generation + 1, generations,
+                progress.bestScore, progress.worstScore, progress.diversity,
+                progress.evaluationsPerSecond, progress.allocatedBytesPerSecond / 1e6));
+        Schedule best = progress.best;
+        if (progress.phase == Phase.MATCH_MATRIX) {
+            Util.printCount(best.getMatchMatrix().getMatchDistribution(), false);
+            return;
+        }
+        BoatMatrix boatMatrix = new BoatMatrix(best.getConfig());
+        for (int flightIdx = 0; flightIdx < best.size(); flightIdx++) {
+            boatMatrix.add(best.get(flightIdx));
+        }
+        Util.printCount(boatMatrix.getBoatDistribution(), false);
+        int[] ii = getInterFlightStat(best, best.getConfig().numTeams);
+        System.out.println(String.format("saved Shuttles: in habour: %d at sea: %d - boat changes: %d", ii[0], ii[1], ii[2]));
+    }
+
+    @Override
+    public void branchCompleted(Phase phase, int flight, int branch, double bestScore, int equalBest) {
+        System.out.println(String.format("found %d schedules with equal costs = %.3f", equalBest, bestScore));
+    }
+
+    @Override
+    public void flightCompleted(Phase phase, int flight, List<Schedule> kept) {
+        System.out.println(String.format("keep %d best schedules for flight %d", kept.size(), flight + 1));
+        System.out.println("best so far:");
+        Util.printCount(kept.get(0).getMatchMatrix().getMatchDistribution(), false);
+    }
+
+    @Override
+    public void stopped(Phase phase, int flight, StopReason reason) {
+        System.out.println(String.format("stopped %s: %s", phase, reason.getDescription()));
+    }
+
+    @Override
+    public void optimalityGap(Phase phase, double bestScore, double lowerBound) {
+        System.out.println(String.format("%s: costs = %.3f, lower bound = %.3f, gap = %.1f%%", phase, bestScore,
+                lowerBound, 100 * MatchMatrixLowerBound.gap(bestScore, lowerBound)));
+    }
+
+    @Override
+    public void phaseCompleted(Phase phase, Schedule best, double bestScore) {
+        System.out.println(String.format("%s done, costs = %.3f", phase, bestScore));
+    }
+}
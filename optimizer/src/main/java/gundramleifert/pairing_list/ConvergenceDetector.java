@@ -0,0 +1,83 @@
+package gundramleifert.pairing_list;
+
+import gundramleifert.pairing_list.configs.OptConfig;
+
+/**
+ * Detects the plateau of a population from the trajectory of its best costs and its diversity. Every
+ * {@code convergenceWindow / SAMPLES} generations a sample is taken; once the samples span the window, the
+ * improvement of the best costs per second over the window is compared with {@link OptConfig#minImprovementPerSecond}.
+ * A population whose diversity grew over the window is still spreading out and is not considered converged.
+ * <p>
+ * The rate is measured in wall-clock time, so as with a time budget the stopping generation depends on the machine.
+ */
+class ConvergenceDetector {
+
+    static final int SAMPLES = 8;
+
+    private final double minImprovementPerSecond;
+    private final int step;
+    private final long[] nanos = new long[SAMPLES + 1];
+    private final double[] bestScores = new double[SAMPLES + 1];
+    private final double[] diversities = new double[SAMPLES + 1];
+    private int count = 0;
+    private int next = 0;
+
+    private ConvergenceDetector(int window, double minImprovementPerSecond) {
+        this.minImprovementPerSecond = minImprovementPerSecond;
+        this.step = Math.max(1, window / SAMPLES);
+    }
+
+    /**
+     * @return the detector of a population, null if the convergence window is off
+     * @throws IllegalArgumentException if the window is on without a positive minimal improvement, which could never
+     *                                  be undercut
+     */
+    static ConvergenceDetector of(OptConfig config) {
+        check(config);
+        return config.convergenceWindow > 0
+                ? new ConvergenceDetector(config.convergenceWindow, config.minImprovementPerSecond)
+                : null;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the convergence window of {@code config} is on without a positive
+     *                                  {@link OptConfig#minImprovementPerSecond}
+     */
+    static void check(OptConfig config) {
+        if (config.convergenceWindow > 0 && !(config.minImprovementPerSecond > 0)) {
+            throw new IllegalArgumentException("convergenceWindow " + config.convergenceWindow
+                    + " needs a positive minImprovementPerSecond, got " + config.minImprovementPerSecond);
+        }
+    }
+
+    /**
+     * @return true if a sample is due after the given 0-based generation
+     */
+    boolean due(int generation) {
+        if (generation < next) {
+            return false;
+        }
+        next = (generation / step + 1) * step;
+        return true;
+    }
+
+    /**
+     * Adds a sample and checks the window ending with it.
+     *
+     * @return true if the population has converged
+     */
+    boolean converged(double bestScore, double diversity) {
+        int slot = count % nanos.length;
+        nanos[slot] = System.nanoTime();
+        bestScores[slot] = bestScore;
+        diversities[slot] = diversity;
+        count++;
+        if (count < nanos.length) {
+            return false;
+        }
+        int oldest = count % nanos.length;
+        double seconds = Math.max(1, nanos[slot] - nanos[oldest]) / 1e9;
+        double improvementPerSecond = (bestScores[oldest] - bestScore) / seconds;
+        return improvementPerSecond < minImprovementPerSecond && diversity <= diversities[oldest];
+    }
+}
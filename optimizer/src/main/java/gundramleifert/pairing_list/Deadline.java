@@ -0,0 +1,85 @@
+package gundramleifert.pairing_list;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A point in time, measured with {@link System#nanoTime()}, at which an optimization phase has to return its best
+ * schedule. Budgets are shared by dividing the remaining time at the moment the next part starts, so time left over
+ * by an early stopping part goes to the following ones.
+ * <p>
+ * A deadline may be bound to the cancel flag of its {@link Optimizer}, then it has passed as soon as the run is
+ * cancelled, also without a time budget.
+ */
+class Deadline {
+
+    static final Deadline NONE = new Deadline(0, false, null);
+
+    private final long nanos;
+    private final boolean bounded;
+    private final AtomicBoolean cancelled;
+
+    private Deadline(long nanos, boolean bounded, AtomicBoolean cancelled) {
+        this.nanos = nanos;
+        this.bounded = bounded;
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * @param millis the budget, no deadline if it is not positive
+     */
+    static Deadline in(long millis) {
+        return in(millis, null);
+    }
+
+    /**
+     * @param millis    the budget, no deadline if it is not positive
+     * @param cancelled the cancel flag of the run, may be null
+     */
+    static Deadline in(long millis, AtomicBoolean cancelled) {
+        if (millis > 0) {
+            return new Deadline(System.nanoTime() + millis * 1_000_000L, true, cancelled);
+        }
+        return cancelled == null ? NONE : new Deadline(0, false, cancelled);
+    }
+
+    boolean isBounded() {
+        return bounded;
+    }
+
+    boolean passed() {
+        return isCancelled() || bounded && System.nanoTime() - nanos >= 0;
+    }
+
+    private boolean isCancelled() {
+        return cancelled != null && cancelled.get();
+    }
+
+    /**
+     * @return why the deadline has passed
+     */
+    StopReason reason() {
+        return isCancelled() ? StopReason.CANCELLED : StopReason.TIME_BUDGET;
+    }
+
+    /**
+     * @return the share of the time from {@code startNanos} to the deadline which has passed, 0 without a deadline
+     */
+    double progress(long startNanos) {
+        if (!bounded) {
+            return 0;
+        }
+        return Math.min(1, (System.nanoTime() - startNanos) / (double) Math.max(1, nanos - startNanos));
+    }
+
+    /**
+     * @return the deadline of the next of {@code parts} parts which share the remaining time equally
+     */
+    Deadline share(int parts) {
+        if (!bounded) {
+            return this;
+        }
+        long now = System.nanoTime();
+        long remaining = Math.max(0, nanos - now);
+        return new Deadline(now + remaining / Math.max(1, parts), true, cancelled);
+    }
+}
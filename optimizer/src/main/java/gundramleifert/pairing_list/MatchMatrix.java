@@ -7,7 +7,11 @@ import java.util.Arrays;
 
 public class MatchMatrix {
 
-    public byte[][] mat;
+    /**
+     * The lower triangle in one contiguous array: the cell of teams {@code i > j} is at {@code i * (i - 1) / 2 + j}.
+     */
+    public final byte[] cells;
+    public final int teams;
     int matches = 0;
     int races = 0;
     int flights = 0;
@@ -16,37 +20,70 @@ public class MatchMatrix {
 
     public byte[] lowerParticipants;
 
+    private int[] valueHistogram;
+    private long cellSum;
+
 
     public MatchMatrix(int teams, int boats) {
-        this.mat = new byte[teams][];
-        for (int i = 0; i < teams; i++) {
-            this.mat[i] = new byte[i];
-        }
+        this.teams = teams;
+        this.cells = new byte[teams * (teams - 1) / 2];
         lowerParticipants = new byte[teams];
         this.boats = boats;
     }
 
     public int[] getMatchDistribution() {
-        int[] res = new int[flights + 1];
-        for (byte[] vec : mat) {
-            for (byte v : vec) {
-                res[v] += 2;
-            }
+        int[] histogram = getValueHistogram();
+        int[] res = new int[histogram.length];
+        for (int v = 0; v < histogram.length; v++) {
+            res[v] = 2 * histogram[v];
         }
         return res;
     }
 
-    public double avg() {
-        int cnt = 0;
-        double sum = 0;
-        for (int i = 0; i < this.mat.length; i++) {
-            byte[] vec = this.mat[i];
-            cnt += vec.length;
-            for (int j = 0; j < vec.length; j++) {
-                sum += vec[j];
-            }
+    /**
+     * Number of cells in the lower triangle having the value of the index. Cached until the next call of
+     * {@link #add(Flight)}, so the matrix must not be changed from outside afterwards.
+     */
+    public int[] getValueHistogram() {
+        if (valueHistogram == null) {
+            int[] res = new int[flights + 1];
+            cellSum = MatchMatrixKernel.get().histogram(cells, res);
+            valueHistogram = res;
         }
-        return sum / cnt;
+        return valueHistogram;
+    }
+
+    public long getCellSum() {
+        getValueHistogram();
+        return cellSum;
+    }
+
+    /**
+     * Replaces the cached histogram after the cells were changed in place by {@link MatchMatrixDelta#applyToParent()}.
+     */
+    void setValueHistogram(int[] valueHistogram, long cellSum) {
+        this.valueHistogram = valueHistogram;
+        this.cellSum = cellSum;
+    }
+
+    public int getCellCount() {
+        return cells.length;
+    }
+
+    private static int index(int team1, int team2) {
+        return team1 > team2 ? team1 * (team1 - 1) / 2 + team2 : team2 * (team2 - 1) / 2 + team1;
+    }
+
+    public byte get(int team1, int team2) {
+        return cells[index(team1, team2)];
+    }
+
+    void inc(int team1, int team2, int delta) {
+        cells[index(team1, team2)] += delta;
+    }
+
+    public double avg() {
+        return ((double) getCellSum()) / getCellCount();
     }
     public double avgLowerParticipants() {
         double sum = 0;
@@ -57,14 +94,8 @@ public class MatchMatrix {
     }
 
     public MatchMatrix(MatchMatrix toCopy) {
-        byte[][] srcMat = toCopy.mat;
-        this.mat = new byte[srcMat.length][];
-        for (int i = 0; i < srcMat.length; i++) {
-            byte[] src = srcMat[i];
-            byte[] tgt = new byte[src.length];
-            this.mat[i] = tgt;
-            System.arraycopy(src, 0, tgt, 0, src.length);
-        }
+        this.teams = toCopy.teams;
+        this.cells = toCopy.cells.clone();
         this.lowerParticipants = new byte[toCopy.lowerParticipants.length];
         System.arraycopy(toCopy.lowerParticipants,
                 0,
@@ -88,24 +119,21 @@ public class MatchMatrix {
     }
 
     public void add(Flight flight) {
+        valueHistogram = null;
         for (Race r : flight.races) {
             matches += r.teams.length * (r.teams.length - 1);
             for (int idxLower = 0; idxLower < r.teams.length; idxLower++) {
                 byte teamLower = r.teams[idxLower];
                 for (int idxHigher = idxLower + 1; idxHigher < r.teams.length; idxHigher++) {
                     final byte teamHigher = r.teams[idxHigher];
-                    if (teamHigher>=mat.length ||teamLower>=mat.length){
+                    if (teamHigher>=teams ||teamLower>=teams){
                         continue;
                     }
-                    if (teamHigher > teamLower) {
-                        mat[teamHigher][teamLower]++;
-                    } else {
-                        mat[teamLower][teamHigher]++;
-                    }
+                    cells[index(teamHigher, teamLower)]++;
 
                 }
             }
-            if (r.hasLowerParticipants(mat.length)) {
+            if (r.hasLowerParticipants(teams)) {
                 for (byte t : r.teams) {
                     if (t<lowerParticipants.length)
                         this.lowerParticipants[t]++;
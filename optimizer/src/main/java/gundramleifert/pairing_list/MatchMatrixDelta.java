@@ -0,0 +1,184 @@
+package gundramleifert.pairing_list;
+
+import gundramleifert.pairing_list.types.TeamSwap;
+
+/**
+ * The change of a {@link MatchMatrix} caused by a {@link TeamSwap} in its last flight. A swap of two teams only
+ * changes the cells of the two teams with the other members of both races, so the value histogram and the sum of
+ * the child can be derived from the parent in O(boats). The child matrix itself is only materialized on demand.
+ */
+public class MatchMatrixDelta {
+
+    // released once the child is materialized, so a survivor does not keep the matrix of a dead parent alive
+    private MatchMatrix parent;
+    private final int teams;
+    private final int cellCount;
+    private final TeamSwap swap;
+    private int[] histogram;
+    private long cellSum;
+    private byte[] lowerParticipants;
+    private final boolean neutral;
+    private MatchMatrix child;
+    private double score = Double.NaN;
+
+    public MatchMatrixDelta(MatchMatrix parent, TeamSwap swap) {
+        this.parent = parent;
+        this.swap = swap;
+        this.teams = parent.teams;
+        this.cellCount = parent.getCellCount();
+        this.neutral = swap.team1 >= teams && swap.team2 >= teams;
+        // fill the cache of the parent now - the delta may be evaluated concurrently with siblings
+        parent.getValueHistogram();
+    }
+
+    private void evaluate() {
+        if (histogram == null) {
+            histogram = parent.getValueHistogram().clone();
+            cellSum = parent.getCellSum();
+            applyCells(null);
+            lowerParticipants = applyLowerParticipants(parent.lowerParticipants);
+        }
+    }
+
+    /**
+     * Iterates over all changed cells and updates the histogram (if {@code target} is null) or the cells of
+     * {@code target}.
+     */
+    private void applyCells(MatchMatrix target) {
+        byte[] r1 = swap.race1.teams;
+        byte[] r2 = swap.race2.teams;
+        for (byte x : r1) {
+            if (x != swap.team2) {
+                change(target, swap.team1, x, -1);
+                change(target, swap.team2, x, 1);
+            }
+        }
+        for (byte y : r2) {
+            if (y != swap.team1) {
+                change(target, swap.team2, y, -1);
+                change(target, swap.team1, y, 1);
+            }
+        }
+    }
+
+    private void change(MatchMatrix target, byte team1, byte team2, int delta) {
+        if (team1 >= teams || team2 >= teams) {
+            return;
+        }
+        if (target != null) {
+            target.inc(team1, team2, delta);
+            return;
+        }
+        byte v = parent.get(team1, team2);
+        histogram[v]--;
+        histogram[v + delta]++;
+        cellSum += delta;
+    }
+
+    private byte[] applyLowerParticipants(byte[] lowerParticipants) {
+        boolean others1Lower = hasLower(swap.race1.teams, swap.team2, teams);
+        boolean others2Lower = hasLower(swap.race2.teams, swap.team1, teams);
+        boolean oldR1Lower = others1Lower || swap.team1 >= teams;
+        boolean newR1Lower = others1Lower || swap.team2 >= teams;
+        boolean oldR2Lower = others2Lower || swap.team2 >= teams;
+        boolean newR2Lower = others2Lower || swap.team1 >= teams;
+        if (!(oldR1Lower || newR1Lower || oldR2Lower || newR2Lower)) {
+            return lowerParticipants;
+        }
+        byte[] res = lowerParticipants.clone();
+        if (oldR1Lower) {
+            addRace(res, swap.race1.teams, swap.team2, swap.team1, -1);
+        }
+        if (newR1Lower) {
+            addRace(res, swap.race1.teams, (byte) -1, (byte) -1, 1);
+        }
+        if (oldR2Lower) {
+            addRace(res, swap.race2.teams, swap.team1, swap.team2, -1);
+        }
+        if (newR2Lower) {
+            addRace(res, swap.race2.teams, (byte) -1, (byte) -1, 1);
+        }
+        return res;
+    }
+
+    private static boolean hasLower(byte[] race, byte skip, int teams) {
+        for (byte t : race) {
+            if (t != skip && t >= teams) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds {@code delta} for all real teams of the race, where {@code replaced} is counted as {@code replacement}.
+     */
+    private static void addRace(byte[] lowerParticipants, byte[] race, byte replaced, byte replacement, int delta) {
+        for (byte t : race) {
+            if (t == replaced) {
+                t = replacement;
+            }
+            if (t >= 0 && t < lowerParticipants.length) {
+                lowerParticipants[t] += delta;
+            }
+        }
+    }
+
+    /**
+     * True if both swapped teams are no-shows - then nothing relevant for the costs changed.
+     */
+    public boolean isNeutral() {
+        return neutral;
+    }
+
+    public int[] getValueHistogram() {
+        evaluate();
+        return histogram;
+    }
+
+    public long getCellSum() {
+        evaluate();
+        return cellSum;
+    }
+
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    public byte[] getLowerParticipants() {
+        evaluate();
+        return lowerParticipants;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    /**
+     * Applies the swap to the parent matrix itself instead of materializing a child, for a search which keeps a
+     * single working matrix. The delta must not be used afterwards.
+     */
+    public void applyToParent() {
+        evaluate();
+        applyCells(parent);
+        System.arraycopy(lowerParticipants, 0, parent.lowerParticipants, 0, lowerParticipants.length);
+        parent.setValueHistogram(histogram, cellSum);
+        parent = null;
+    }
+
+    public MatchMatrix getMatchMatrix() {
+        if (child == null) {
+            evaluate();
+            MatchMatrix res = new MatchMatrix(parent);
+            applyCells(res);
+            System.arraycopy(lowerParticipants, 0, res.lowerParticipants, 0, lowerParticipants.length);
+            child = res;
+            parent = null;
+        }
+        return child;
+    }
+}
@@ -0,0 +1,67 @@
+package gundramleifert.pairing_list;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counts the values of the flat {@link MatchMatrix#cells}. The cubic deviation of a match matrix only depends on
+ * this histogram (see {@link gundramleifert.pairing_list.cost_calculators.CostCalculatorMatchMatrix}), so this one
+ * pass over the cells is all that full scoring needs. If the JVM runs with
+ * {@code --add-modules jdk.incubator.vector}, a SIMD kernel is used, otherwise a scalar loop. The SIMD kernel lives in
+ * its own source set, so only it is compiled against the incubator module.
+ */
+public abstract class MatchMatrixKernel {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MatchMatrixKernel.class);
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final MatchMatrixKernel INSTANCE = create();
+
+    public static MatchMatrixKernel get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Fills {@code histogram} with the number of cells having the value of the index and returns the sum of all
+     * cells. The histogram has to be zeroed and longer than the largest cell value.
+     */
+    public abstract long histogram(byte[] cells, int[] histogram);
+
+    public abstract String getName();
+
+    static long sum(int[] histogram) {
+        long sum = 0;
+        for (int v = 1; v < histogram.length; v++) {
+            sum += (long) v * histogram[v];
+        }
+        return sum;
+    }
+
+    private static MatchMatrixKernel create() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                // loaded by name, so this class links without the incubator module
+                return (MatchMatrixKernel) Class.forName(MatchMatrixKernel.class.getPackageName() + ".VectorMatchMatrixKernel")
+                        .getDeclaredConstructor()
+                        .newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                LOG.warn("cannot load vector kernel, using scalar one", e);
+            }
+        }
+        return new Scalar();
+    }
+
+    static final class Scalar extends MatchMatrixKernel {
+        @Override
+        public long histogram(byte[] cells, int[] histogram) {
+            for (byte v : cells) {
+                histogram[v]++;
+            }
+            return sum(histogram);
+        }
+
+        @Override
+        public String getName() {
+            return "scalar";
+        }
+    }
+}
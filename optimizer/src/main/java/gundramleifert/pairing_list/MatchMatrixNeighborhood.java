@@ -0,0 +1,94 @@
+package gundramleifert.pairing_list;
+
+import gundramleifert.pairing_list.cost_calculators.CostCalculatorMatchMatrix;
+import gundramleifert.pairing_list.types.Flight;
+import gundramleifert.pairing_list.types.FlightUndoLog;
+import gundramleifert.pairing_list.types.Race;
+import gundramleifert.pairing_list.types.Schedule;
+import gundramleifert.pairing_list.types.TeamSwap;
+
+import java.util.SplittableRandom;
+
+/**
+ * Swaps of two teams between races of the last flight of a schedule, like the mutations of the match matrix GA. The
+ * match matrix of the working schedule is updated in place when a swap is accepted.
+ */
+class MatchMatrixNeighborhood implements Neighborhood<Schedule> {
+
+    private final Schedule working;
+    private final Flight flight;
+    private final MatchMatrix matrix;
+    private final CostCalculatorMatchMatrix scorer;
+    private final FlightUndoLog undo = new FlightUndoLog();
+    private double costs;
+    private long hash;
+    private TeamSwap swap;
+    private MatchMatrixDelta delta;
+
+    /**
+     * @param working a schedule whose last flight belongs to the neighborhood from now on
+     */
+    MatchMatrixNeighborhood(Schedule working, CostCalculatorMatchMatrix scorer) {
+        this.working = working;
+        this.flight = working.lastFlight();
+        this.matrix = working.getMatchMatrix();
+        this.scorer = scorer;
+        this.costs = scorer.score(working);
+        this.hash = working.getLastFlightHash();
+    }
+
+    @Override
+    public double costs() {
+        return costs;
+    }
+
+    @Override
+    public long randomMove(SplittableRandom random) {
+        // the same draws as MutationUtil.swapBetweenRaces
+        int races = flight.races.length;
+        int r1 = random.nextInt(races);
+        int r2 = (r1 + 1 + random.nextInt(races - 1)) % races;
+        Race race1 = flight.races[r1];
+        Race race2 = flight.races[r2];
+        int team1 = race1.teams[random.nextInt(race1.teams.length)];
+        int team2 = race2.teams[random.nextInt(race2.teams.length)];
+        return (long) Math.min(team1, team2) << 8 | Math.max(team1, team2);
+    }
+
+    @Override
+    public double apply(long move, double bound) {
+        undo.record(flight);
+        swap = MutationUtil.swapTeams(flight, (byte) (move >>> 8), (byte) move);
+        delta = scorer.scoreSwap(costs, matrix, swap, flight);
+        return delta.getScore();
+    }
+
+    @Override
+    public void accept() {
+        costs = delta.getScore();
+        hash = Zobrist.hashAfter(hash, swap);
+        delta.applyToParent();
+        delta = null;
+        swap = null;
+    }
+
+    @Override
+    public void reject() {
+        undo.revert();
+        delta = null;
+        swap = null;
+    }
+
+    @Override
+    public Schedule snapshot() {
+        Schedule copy = working.copy();
+        copy.setLastFlightHash(hash);
+        scorer.cacheScore(copy, costs);
+        return copy;
+    }
+
+    @Override
+    public long hash(Schedule snapshot) {
+        return snapshot.getLastFlightHash();
+    }
+}
@@ -0,0 +1,61 @@
+package gundramleifert.pairing_list;
+
+import gundramleifert.pairing_list.configs.OptMatchMatrixConfig;
+import gundramleifert.pairing_list.configs.OptimizationConfig;
+import gundramleifert.pairing_list.configs.ScheduleConfig;
+import gundramleifert.pairing_list.types.Schedule;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.function.Consumer;
+
+/**
+ * Runs the match matrix optimization and reports the live heap while the populations are alive and the total GC
+ * time. Usage: {@code MemoryBenchmark [schedule_cfg.yml] [opt_cfg.yml] [loops]}, loops default to 50000. The live
+ * heap is sampled about ten times per flight after a forced GC, which is excluded from the reported GC time.
+ */
+public class MemoryBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        ScheduleConfig scheduleProps = ScheduleConfig.readYaml(args.length > 0 ? args[0] : "schedule_cfg.yml");
+        OptimizationConfig optimizationProps = OptimizationConfig.readYaml(args.length > 1 ? args[1] : "opt_cfg.yml");
+        OptMatchMatrixConfig mm = optimizationProps.optMatchMatrix;
+        mm.loops = args.length > 2 ? Integer.parseInt(args[2]) : 50000;
+        mm.earlyStopping = -1;
+        mm.showEveryN = Math.max(1, mm.loops / 10);
+        mm.saveEveryN = Math.max(1, mm.loops / 10);
+        int liveIndividuals = mm.individuals * Math.max(1, mm.islands) * Math.max(1, mm.maxBranches);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long[] forcedGcMillis = new long[1];
+        long[] maxLive = new long[1];
+        Consumer<Schedule> sampler = schedule -> {
+            long before = totalGcMillis();
+            System.gc();
+            forcedGcMillis[0] += totalGcMillis() - before;
+            maxLive[0] = Math.max(maxLive[0], memory.getHeapMemoryUsage().getUsed());
+        };
+
+        long gcBefore = totalGcMillis();
+        long start = System.nanoTime();
+        Optimizer optimizer = new Optimizer();
+        optimizer.init(scheduleProps, optimizationProps);
+        optimizer.optimizeMatchMatrix(sampler);
+        long wallMillis = (System.nanoTime() - start) / 1_000_000;
+        long gcMillis = totalGcMillis() - gcBefore - forcedGcMillis[0];
+
+        System.out.println(String.format("loops per flight: %d, live individuals: %d", mm.loops, liveIndividuals));
+        System.out.println(String.format("max live heap: %.1f MB = %.1f KB per individual",
+                maxLive[0] / 1e6, maxLive[0] / 1e3 / liveIndividuals));
+        System.out.println(String.format("GC time: %d ms of %d ms wall time", gcMillis, wallMillis));
+    }
+
+    private static long totalGcMillis() {
+        long res = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            res += Math.max(0, gc.getCollectionTime());
+        }
+        return res;
+    }
+}
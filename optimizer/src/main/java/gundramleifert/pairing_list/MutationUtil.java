@@ -1,73 +1,56 @@
 package gundramleifert.pairing_list;
 
 import gundramleifert.pairing_list.configs.ScheduleConfig;
+import gundramleifert.pairing_list.types.BoatSwap;
 import gundramleifert.pairing_list.types.Flight;
+import gundramleifert.pairing_list.types.PackedSchedule;
 import gundramleifert.pairing_list.types.Race;
+import gundramleifert.pairing_list.types.RaceSwap;
 import gundramleifert.pairing_list.types.Schedule;
+import gundramleifert.pairing_list.types.TeamSwap;
 
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 public class MutationUtil {
 
-    public static Schedule swapBoats(Schedule schedule, Random random) {
-        int f_idx = random.nextInt(schedule.size());
-        Flight f = schedule.get(f_idx).copy();
-        int races = f.races.length;
-        int r_idx = random.nextInt(races);
-        Race r = f.races[r_idx];
-        int boats = r.teams.length;
-        int b_idx1 = random.nextInt(boats);
-        int b_idx2 = (b_idx1 + 1 + random.nextInt(boats - 1)) % boats;
-        byte boat = r.teams[b_idx1];
-        r.teams[b_idx1] = r.teams[b_idx2];
-        r.teams[b_idx2] = boat;
-        Schedule res = schedule.copy(f_idx, f);
-        // NO sort!!
-        return res;
-    }
-    public static Schedule swapBoatsDeepCopy(Schedule schedule, Random random) {
-        int f_idx = random.nextInt(schedule.size());
-        Flight f = schedule.get(f_idx).copy();
-        int races = f.races.length;
-        int r_idx = random.nextInt(races);
-        Race r = f.races[r_idx];
-        int boats = r.teams.length;
+    public static BoatSwap randomBoatSwap(PackedSchedule schedule, RandomGenerator random) {
+        int f_idx = random.nextInt(schedule.flights);
+        int r_idx = random.nextInt(schedule.races);
+        int boats = schedule.boats;
         int b_idx1 = random.nextInt(boats);
         int b_idx2 = (b_idx1 + 1 + random.nextInt(boats - 1)) % boats;
-        byte boat = r.teams[b_idx1];
-        r.teams[b_idx1] = r.teams[b_idx2];
-        r.teams[b_idx2] = boat;
-        // NO sort!!
-        return schedule.deepCopy(f_idx,f);
+        return new BoatSwap(f_idx, r_idx, b_idx1, b_idx2);
     }
 
-    public static Schedule swapRaces(Schedule schedule, Random random) {
-        int f_idx = random.nextInt(schedule.size());
-        Flight f = schedule.get(f_idx).copy();
-        int races = f.races.length;
+    public static RaceSwap randomRaceSwap(PackedSchedule schedule, RandomGenerator random) {
+        int f_idx = random.nextInt(schedule.flights);
+        int races = schedule.races;
         int r1_idx = random.nextInt(races);
         int r2_idx = (r1_idx + 1 + random.nextInt(races - 1)) % races;
-        Race race = f.races[r1_idx];
-        f.races[r1_idx] = f.races[r2_idx];
-        f.races[r2_idx] = race;
-        Schedule res = schedule.copy(f_idx, f);
-        return res;
+        return new RaceSwap(f_idx, r1_idx, r2_idx);
     }
-    public static Schedule swapRacesDeepCopy(Schedule schedule, Random random) {
-        int f_idx = random.nextInt(schedule.size());
-        Flight f = schedule.get(f_idx).copy();
-        int races = f.races.length;
-        int r1_idx = random.nextInt(races);
-        int r2_idx = (r1_idx + 1 + random.nextInt(races - 1)) % races;
-        Race race = f.races[r1_idx];
-        f.races[r1_idx] = f.races[r2_idx];
-        f.races[r2_idx] = race;
-        return schedule.deepCopy(f_idx,f);
+
+    /**
+     * Applies the swap to {@code schedule} itself and updates its Zobrist hash - applying it a second time reverts
+     * both.
+     */
+    public static void swapBoatsInPlace(PackedSchedule schedule, BoatSwap swap, Zobrist zobrist) {
+        zobrist.swapBoats(schedule, swap);
+        schedule.swapBoats(swap.flight, swap.race, swap.boat1, swap.boat2);
     }
 
-    public static void swapBetweenRaces(Schedule schedule, Random random) {
+    /**
+     * Applies the swap to {@code schedule} itself and updates its Zobrist hash - applying it a second time reverts
+     * both.
+     */
+    public static void swapRacesInPlace(PackedSchedule schedule, RaceSwap swap, Zobrist zobrist) {
+        zobrist.swapRaces(schedule, swap);
+        schedule.swapRaces(swap.flight, swap.race1, swap.race2);
+    }
+
+    public static TeamSwap swapBetweenRaces(Schedule schedule, RandomGenerator random) {
         Flight f = schedule.get(schedule.size() - 1);
         int races = f.races.length;
         int r1_idx = random.nextInt(races);
@@ -79,9 +62,45 @@ public class MutationUtil {
         byte team1 = r1.teams[t1_idx];
         r1.teams[t1_idx] = r2.teams[t2_idx];
         r2.teams[t2_idx] = team1;
+        byte team2 = r1.teams[t1_idx];
+        Arrays.sort(r1.teams);
+        Arrays.sort(r2.teams);
+        Arrays.sort(f.races, Comparator.comparingInt(race -> race.teams[0]));
+        return new TeamSwap(r1, r2, team1, team2);
+    }
+
+    /**
+     * Swaps two teams of different races of {@code f} in place and sorts like {@link #swapBetweenRaces}.
+     */
+    public static TeamSwap swapTeams(Flight f, byte team1, byte team2) {
+        Race r1 = raceOf(f, team1);
+        Race r2 = raceOf(f, team2);
+        replace(r1.teams, team1, team2);
+        replace(r2.teams, team2, team1);
         Arrays.sort(r1.teams);
         Arrays.sort(r2.teams);
         Arrays.sort(f.races, Comparator.comparingInt(race -> race.teams[0]));
+        return new TeamSwap(r1, r2, team1, team2);
+    }
+
+    private static Race raceOf(Flight f, byte team) {
+        for (Race race : f.races) {
+            for (byte t : race.teams) {
+                if (t == team) {
+                    return race;
+                }
+            }
+        }
+        throw new IllegalArgumentException("team " + team + " is not part of the flight");
+    }
+
+    private static void replace(byte[] teams, byte team, byte replacement) {
+        for (int i = 0; i < teams.length; i++) {
+            if (teams[i] == team) {
+                teams[i] = replacement;
+                return;
+            }
+        }
     }
 
 //    public static Schedule swapBetweenRaces(Schedule schedule, int flightIndex, Random random) {
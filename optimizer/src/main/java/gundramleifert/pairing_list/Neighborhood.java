@@ -0,0 +1,42 @@
+package gundramleifert.pairing_list;
+
+import java.util.SplittableRandom;
+
+/**
+ * The working solution of a single-trajectory {@link SearchStrategy} together with the moves of its phase. A move is
+ * applied in place and scored incrementally against the current costs, then it is either kept by {@link #accept()}
+ * or reverted by {@link #reject()} before the next move is applied.
+ * <p>
+ * Moves are encoded in a {@code long}, so strategies can remember them without allocating. A move and the move
+ * reverting it have the same code.
+ *
+ * @param <S> the type of the snapshots
+ */
+interface Neighborhood<S> {
+
+    double costs();
+
+    long randomMove(SplittableRandom random);
+
+    /**
+     * Applies {@code move} to the working solution.
+     *
+     * @return the costs after the move - if they are not below {@code bound}, only a lower bound and the move has to
+     * be rejected
+     */
+    double apply(long move, double bound);
+
+    void accept();
+
+    void reject();
+
+    /**
+     * @return a copy of the working solution, which is not changed by later moves
+     */
+    S snapshot();
+
+    /**
+     * @return a hash of a snapshot, equal snapshots have equal hashes
+     */
+    long hash(S snapshot);
+}
@@ -2,213 +2,487 @@ package gundramleifert.pairing_list;
 
 import com.fasterxml.jackson.databind.deser.DataFormatReaders;
 import gundramleifert.pairing_list.configs.*;
+import gundramleifert.pairing_list.cost_calculators.BoatScheduleCosts;
 import gundramleifert.pairing_list.cost_calculators.CostCalculatorBoatSchedule;
 import gundramleifert.pairing_list.cost_calculators.CostCalculatorMatchMatrix;
 import gundramleifert.pairing_list.cost_calculators.ICostCalculator;
-import gundramleifert.pairing_list.types.BoatMatrix;
+import gundramleifert.pairing_list.cost_calculators.MatchMatrixLowerBound;
+import gundramleifert.pairing_list.types.BoatSwap;
 import gundramleifert.pairing_list.types.Flight;
+import gundramleifert.pairing_list.types.FlightUndoLog;
+import gundramleifert.pairing_list.types.PackedSchedule;
+import gundramleifert.pairing_list.types.RaceSwap;
 import gundramleifert.pairing_list.types.Schedule;
+import gundramleifert.pairing_list.types.TeamSwap;
 import lombok.SneakyThrows;
 import org.apache.commons.cli.*;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
 import java.util.stream.Collectors;
 
-import static gundramleifert.pairing_list.cost_calculators.CostCalculatorBoatSchedule.getInterFlightStat;
-
 public class Optimizer {
   private ScheduleConfig properties;
   private OptimizationConfig optProps;
-  private Random random;
-
-  public void init(ScheduleConfig properties, OptimizationConfig optimizationConfig, Random random) {
+  private RandomStreams streams;
+  private ForkJoinPool pool;
+  private Seeding seeding;
+  private MatchMatrixLowerBound lowerBound;
+  private final OptimizerListeners listeners = new OptimizerListeners();
+  private final AtomicBoolean cancelled = new AtomicBoolean();
+
+  public void init(ScheduleConfig properties, OptimizationConfig optimizationConfig) {
+    for (OptConfig config : new OptConfig[]{optimizationConfig.optMatchMatrix, optimizationConfig.optBoatUsage}) {
+      if (config != null) {
+        ConvergenceDetector.check(config);
+      }
+    }
     this.properties = properties;
     this.optProps = optimizationConfig;
-    this.random = random;
+    this.streams = new RandomStreams(optimizationConfig.seed);
+
+  }
 
+  /**
+   * Adds a listener for the progress of the following runs. Without listeners nothing is reported.
+   */
+  public void addListener(OptimizerListener listener) {
+    listeners.add(listener);
   }
 
-  private static void printQuality(ICostCalculator scorer, List<Schedule> schedules) {
-    System.out.format("Score:%6.3f Age:%3d best ( %6.3f worst)\n",
-            scorer.score(schedules.get(0)),
-            schedules.get(0).getAge(),
-            scorer.score(schedules.get(schedules.size() - 1)));
+  /**
+   * Lets the running phase return its best schedule as soon as possible, like at the end of its time budget. Later
+   * phases of this optimizer stop after their first generation. Can be called from any thread.
+   */
+  public void cancel() {
+    cancelled.set(true);
   }
 
-//    private static void printQuality(String prefix, CostCalculatorMatchMatrix scorer, Flight schedule) {
-//        System.out.format("Score:%6.3f Age:%3d %s\n", scorer.score(schedule), schedule.getAge(), prefix);
-//    }
+  public boolean isCancelled() {
+    return cancelled.get();
+  }
 
-  private static void printQuality(String prefix, ICostCalculator scorer, Schedule schedule) {
-    System.out.format("Score:%6.3f Age:%3d %s\n", scorer.score(schedule), schedule.getAge(), prefix);
+  private ProgressSampler sampler(OptimizerListener.Phase phase, int flight, int branch, OptConfig config) {
+    return listeners.isEmpty() ? null : new ProgressSampler(listeners, phase, flight, branch, config.loops, config.showEveryN);
+  }
+
+  /**
+   * Scores all given schedules and stores the result in their score cache. If a pool is configured, the
+   * schedules are scored in parallel - the RNG is not touched here, so the result does not depend on the
+   * number of threads.
+   */
+  private void scoreAll(ICostCalculator scorer, List<Schedule> schedules) {
+    if (pool == null || schedules.size() < 2) {
+      for (Schedule schedule : schedules) {
+        scorer.scoreWithCache(schedule);
+      }
+      return;
+    }
+    pool.submit(() -> schedules.parallelStream().forEach(scorer::scoreWithCache)).join();
   }
 
-  private List<Schedule> getBestFlights(Schedule base, Random random, Consumer<Schedule> saver) {
+  /**
+   * The start individuals of a flight: random partitions, the first ones constructed if seeding is configured.
+   */
+  private List<Schedule> getStartPopulation(Schedule base, int individuals, RandomGenerator random) {
     List<Schedule> schedules = new ArrayList<>();
-    for (int i = 0; i < optProps.optMatchMatrix.individuals; i++) {
-      schedules.add(new Schedule(base, Util.getRandomFlight(properties, random)));
+    int seeds = seeding == null ? 0 : seeding.seeds(individuals);
+    for (int i = 0; i < individuals; i++) {
+      Flight flight = i < seeds ? seeding.flight(base, i, random) : Util.getRandomFlight(properties, random);
+      schedules.add(new Schedule(base, flight));
     }
-    int counter = 0;
-    final CostCalculatorMatchMatrix scorer = new CostCalculatorMatchMatrix(properties, optProps.optMatchMatrix);
-    OptMatchMatrixConfig optMatchMatrix = optProps.optMatchMatrix;
+    return schedules;
+  }
 
-    for (int i = 0; i < optMatchMatrix.loops; i++) {
-      for (int j = 0; j < optMatchMatrix.swapTeams; j++) {
-        Schedule mutation = schedules.get(random.nextInt(schedules.size())).copy();
-        MutationUtil.swapBetweenRaces(mutation, random);
-        if (!schedules.contains(mutation)) {
-          schedules.add(mutation);
+  /**
+   * One generation of the match matrix GA: tries {@code swapTeams} mutants. Each swap is applied in place on the
+   * parent's last flight and scored incrementally; only mutants which beat the worst survivor and are no duplicates
+   * are copied into the population (replacing the worst one), all others are reverted from the undo log. The
+   * mutants are scored sequentially: an incremental score takes about a microsecond, less than handing them to the
+   * pool would, so {@code threads} parallelise branches and islands instead.
+   */
+  private void evolveMatchMatrix(Island island, CostCalculatorMatchMatrix scorer) {
+    OptMatchMatrixConfig optMatchMatrix = optProps.optMatchMatrix;
+    Population<Schedule> population = island.population;
+    for (int j = 0; j < optMatchMatrix.swapTeams; j++) {
+      Schedule parent = population.get(island.random.nextInt(population.size()));
+      double parentScore = scorer.scoreWithCache(parent);
+      // the matrix and the hash have to be derived before the last flight is changed
+      MatchMatrix parentMatrix = parent.getMatchMatrix();
+      long parentHash = parent.getLastFlightHash();
+      Flight flight = parent.lastFlight();
+      island.undo.record(flight);
+      TeamSwap swap = MutationUtil.swapBetweenRaces(parent, island.random);
+      double score = scorer.scoreSwap(parentScore, parentMatrix, swap, flight).getScore();
+      island.evaluations++;
+      if (population.accepts(score)) {
+        long hash = Zobrist.hashAfter(parentHash, swap);
+        if (!island.index.contains(hash, parent)) {
+          Schedule mutation = parent.copy();
+          // scored incrementally from the parent's matrix, the own matrix is only built if it becomes a parent
+          mutation.setMatchMatrixDelta(new MatchMatrixDelta(parentMatrix, swap.onCopy(flight, mutation.lastFlight())));
+          mutation.setLastFlightHash(hash);
+          scorer.cacheScore(mutation, score);
+          island.offer(mutation, score);
         }
       }
-      schedules.sort(Comparator.comparingDouble(scorer::scoreWithCache));
-      if (schedules.size() > optMatchMatrix.individuals) {
-                   /* for (Schedule schedule : schedules.subList(individuals, schedules.size())) {
-                        hashes.remove(Integer.valueOf(schedule.hashCode()));
-                    }*/
-        schedules = new ArrayList<>(schedules.subList(0, optMatchMatrix.individuals));
-      }
-      if (i == optMatchMatrix.loops - 1 || (optMatchMatrix.showEveryN > 0 && counter % optMatchMatrix.showEveryN == 0)) {
-//                System.out.println("------------  " + i + "  -----------------------");
-//                //System.out.println("best1:" + scorer1.score(schedules.get(0)));
-//                printQuality(scorer, schedules);
-        //Util.printMatchMatrix(properties, schedules.get(0));
-//                Util.printCount(properties, copy);
-//            }
-        for (Schedule s : schedules) {
-          s.getOlder();
-        }
-        counter++;
-        if (optMatchMatrix.earlyStopping > 0 && schedules.get(0).getAge() >= optMatchMatrix.earlyStopping) {
-          System.out.println("Early Stopping applied");
-          break;
-        }
-        if (saver != null && optMatchMatrix.saveEveryN > 0 && counter % optMatchMatrix.saveEveryN == 0) {
-          Util.printCount(schedules.get(0).getMatchMatrix().getMatchDistribution(), false);
-          saver.accept(schedules.get(0));
-        }
+      island.undo.revert();
+    }
+  }
 
-      }
+  private List<Schedule> reportBest(List<Schedule> schedules, ICostCalculator scorer, int flight, int branch) {
+    if (listeners.isEmpty()) {
+      return schedules;
     }
-//        return schedules;
     double currentValue = scorer.scoreWithCache(schedules.get(0));
-    List<Schedule> collect = schedules
+    long count = schedules
             .stream()
-            .filter(flight -> Math.abs(scorer.scoreWithCache(flight) - currentValue) < 1e-5)
-            .collect(Collectors.toList());
-    System.out.println(String.format("found %d schedules with equal costs = %.3f", collect.size(), currentValue));
-    return collect;
+            .filter(schedule -> Math.abs(scorer.scoreWithCache(schedule) - currentValue) < 1e-5)
+            .count();
+    listeners.branchCompleted(OptimizerListener.Phase.MATCH_MATRIX, flight, branch, currentValue, (int) count);
+    return schedules;
   }
 
-  private List<Schedule> getBestFlight4Boats(Schedule best, Random random, Consumer<Schedule> saver) {
-    List<Schedule> schedules = new ArrayList<>();
-    OptBoatConfig optBoatUsage = optProps.optBoatUsage;
-    for (int i = 0; i < optBoatUsage.individuals; i++) {
-      Schedule copy = best.copy();
-      Util.shuffleTeams(best.get(best.size() - 1), random);
-      schedules.add(copy);
+  private List<Schedule> getBestFlights(Schedule base, int flight, int branch, SplittableRandom random, Deadline deadline,
+                                        Consumer<Schedule> saver) {
+    // the matrix of the base is shared by all individuals - make sure it exists before scoring in parallel
+    base.getMatchMatrix();
+    if (optProps.optMatchMatrix.strategy != Strategy.GENETIC) {
+      return getBestFlightsTrajectory(base, flight, branch, random, deadline, saver);
+    }
+    if (optProps.optMatchMatrix.islands > 1) {
+      return getBestFlightsIslands(base, flight, branch, random, deadline, saver);
     }
+    List<Schedule> schedules = getStartPopulation(base, optProps.optMatchMatrix.individuals, random);
+    double bound = lowerBound.next(base.getMatchMatrix());
     int counter = 0;
-    final CostCalculatorBoatSchedule scorer = new CostCalculatorBoatSchedule(properties, optBoatUsage);
-    for (int i = 0; i < optBoatUsage.loops; i++) {
-      for (int j = 0; j < optBoatUsage.swapBoats; j++) {
-        Schedule mutation = schedules.get(random.nextInt(schedules.size())).copy();
-        MutationUtil.swapBoats(mutation, random);
-        if (!schedules.contains(mutation)) {
-          schedules.add(mutation);
-        }
+    final CostCalculatorMatchMatrix scorer = new CostCalculatorMatchMatrix(properties, optProps.optMatchMatrix);
+    OptMatchMatrixConfig optMatchMatrix = optProps.optMatchMatrix;
+    scoreAll(scorer, schedules);
+    Island island = new Island(schedules, random, scorer);
+    ProgressSampler sampler = sampler(OptimizerListener.Phase.MATCH_MATRIX, flight, branch, optMatchMatrix);
+    ConvergenceDetector convergence = ConvergenceDetector.of(optMatchMatrix);
+
+    int loops = optMatchMatrix.maxLoops();
+    for (int i = 0; i < loops; i++) {
+      evolveMatchMatrix(island, scorer);
+      if (sampler != null && sampler.due(i)) {
+        Population<Schedule> population = island.population;
+        sampler.sample(i, island.evaluations, population.bestScore(), population.worstScore(),
+                ProgressSampler.diversity(population), population.best());
       }
-      for (int j = 0; j < optBoatUsage.swapRaces; j++) {
-        Schedule mutation = schedules.get(random.nextInt(schedules.size())).copy();
-        MutationUtil.swapRaces(mutation, random);
-        if (!schedules.contains(mutation)) {
-          schedules.add(mutation);
-        }
+      island.getOlder();
+      counter++;
+      Schedule best = island.population.best();
+      if (optMatchMatrix.earlyStopping > 0 && best.getAge() >= optMatchMatrix.earlyStopping) {
+        listeners.stopped(OptimizerListener.Phase.MATCH_MATRIX, flight, StopReason.EARLY_STOPPING);
+        break;
       }
-      schedules.sort(Comparator.comparingDouble(scorer::scoreWithCache));
-      if (schedules.size() > optBoatUsage.individuals) {
-                   /* for (Schedule schedule : schedules.subList(individuals, schedules.size())) {
-                        hashes.remove(Integer.valueOf(schedule.hashCode()));
-                    }*/
-        schedules = new ArrayList<>(schedules.subList(0, optBoatUsage.individuals));
-      }
-      if (i == optBoatUsage.loops - 1 || (optBoatUsage.showEveryN > 0 && counter % optBoatUsage.showEveryN == 0)) {
-//                System.out.println("------------  " + i + "  -----------------------");
-//                //System.out.println("best1:" + scorer1.score(schedules.get(0)));
-//                printQuality(scorer, schedules);
-        //Util.printMatchMatrix(properties, schedules.get(0));
-//                Schedule copy = schedule.copy();
-//                copy.add(schedules.get(0));
-//                Util.printCount(properties, copy);
-//            }
-        for (Schedule s : schedules) {
-          s.getOlder();
-        }
-        counter++;
-        if (optBoatUsage.earlyStopping > 0 && schedules.get(0).getAge() >= optBoatUsage.earlyStopping) {
-          System.out.println("Early Stopping applied");
-          break;
+      if (saver != null && optMatchMatrix.saveEveryN > 0 && counter % optMatchMatrix.saveEveryN == 0) {
+        saver.accept(best);
+      }
+      if (convergence != null && convergence.due(i) && convergence.converged(island.population.bestScore(),
+              ProgressSampler.diversity(island.population))) {
+        listeners.stopped(OptimizerListener.Phase.MATCH_MATRIX, flight, StopReason.CONVERGED);
+        break;
+      }
+      if (MatchMatrixLowerBound.reached(island.population.bestScore(), bound)) {
+        listeners.stopped(OptimizerListener.Phase.MATCH_MATRIX, flight, StopReason.OPTIMAL);
+        break;
+      }
+      if (deadline.passed()) {
+        listeners.stopped(OptimizerListener.Phase.MATCH_MATRIX, flight, deadline.reason());
+        break;
+      }
+    }
+    return reportBest(island.population.toSortedList(), scorer, flight, branch);
+  }
+
+  /**
+   * Single-trajectory variant of {@link #getBestFlights}: the configured {@link SearchStrategy} improves one random
+   * last flight, {@code swapTeams} steps per generation. The best {@code maxBranches} distinct schedules seen are
+   * returned for the beam.
+   */
+  private List<Schedule> getBestFlightsTrajectory(Schedule base, int flight, int branch, SplittableRandom random,
+                                                  Deadline deadline, Consumer<Schedule> saver) {
+    OptMatchMatrixConfig optMatchMatrix = optProps.optMatchMatrix;
+    final CostCalculatorMatchMatrix scorer = new CostCalculatorMatchMatrix(properties, optMatchMatrix);
+    MatchMatrixNeighborhood neighborhood = new MatchMatrixNeighborhood(
+            new Schedule(base, seeding == null ? Util.getRandomFlight(properties, random) : seeding.flight(base, 0, random)),
+            scorer);
+    TrajectorySearch<Schedule> search = new TrajectorySearch<>(neighborhood, SearchStrategy.of(optMatchMatrix),
+            optMatchMatrix.swapTeams, optMatchMatrix.maxBranches, random);
+    StopReason reason = search.run(optMatchMatrix, deadline, lowerBound.next(base.getMatchMatrix()),
+            sampler(OptimizerListener.Phase.MATCH_MATRIX, flight, branch, optMatchMatrix), schedule -> schedule, saver);
+    if (reason != null) {
+      listeners.stopped(OptimizerListener.Phase.MATCH_MATRIX, flight, reason);
+    }
+    return reportBest(search.best(), scorer, flight, branch);
+  }
+
+  /**
+   * Island model of {@link #getBestFlights}: {@code islands} independent populations with their own RNG evolve
+   * {@code migrationInterval} generations (in parallel if a pool is configured), then the best {@code migrants}
+   * of each island are copied to the next island (ring topology). The RNGs are split off {@code random} in island
+   * order before any island starts, so the result does not depend on the number of threads. The deadline is checked
+   * between migrations.
+   */
+  private List<Schedule> getBestFlightsIslands(Schedule base, int flight, int branch, SplittableRandom random,
+                                               Deadline deadline, Consumer<Schedule> saver) {
+    OptMatchMatrixConfig optMatchMatrix = optProps.optMatchMatrix;
+    final CostCalculatorMatchMatrix scorer = new CostCalculatorMatchMatrix(properties, optMatchMatrix);
+    int interval = Math.max(1, optMatchMatrix.migrationInterval);
+    Island[] islands = new Island[optMatchMatrix.islands];
+    SplittableRandom[] islandRandoms = new SplittableRandom[islands.length];
+    List<List<Schedule>> populations = new ArrayList<>(islands.length);
+    for (int k = 0; k < islands.length; k++) {
+      islandRandoms[k] = random.split();
+      populations.add(getStartPopulation(base, optMatchMatrix.individuals, islandRandoms[k]));
+    }
+    scoreAll(scorer, populations.stream().flatMap(List::stream).collect(Collectors.toList()));
+    for (int k = 0; k < islands.length; k++) {
+      islands[k] = new Island(populations.get(k), islandRandoms[k], scorer);
+    }
+    ProgressSampler sampler = sampler(OptimizerListener.Phase.MATCH_MATRIX, flight, branch, optMatchMatrix);
+    ConvergenceDetector convergence = ConvergenceDetector.of(optMatchMatrix);
+    double bound = lowerBound.next(base.getMatchMatrix());
+    int counter = 0;
+    int loops = optMatchMatrix.maxLoops();
+    for (int done = 0; done < loops; done += interval) {
+      int generations = Math.min(interval, loops - done);
+      if (pool == null) {
+        for (Island island : islands) {
+          island.evolve(scorer, generations);
         }
-        if (saver != null && optBoatUsage.saveEveryN > 0 && counter % optBoatUsage.saveEveryN == 0) {
-          saver.accept(schedules.get(0));
+      } else {
+        pool.submit(() -> Arrays.stream(islands).parallel().forEach(island -> island.evolve(scorer, generations))).join();
+      }
+      migrate(islands, scorer, optMatchMatrix.migrants);
+      counter++;
+      Schedule best = bestOfIslands(islands, scorer);
+      if (sampler != null && sampler.due(done + generations - 1)) {
+        sampleIslands(sampler, done + generations - 1, islands, scorer.scoreWithCache(best), best);
+      }
+      if (optMatchMatrix.earlyStopping > 0 && best.getAge() >= optMatchMatrix.earlyStopping) {
+        listeners.stopped(OptimizerListener.Phase.MATCH_MATRIX, flight, StopReason.EARLY_STOPPING);
+        break;
+      }
+      if (saver != null && optMatchMatrix.saveEveryN > 0 && counter % optMatchMatrix.saveEveryN == 0) {
+        saver.accept(best);
+      }
+      if (convergence != null && convergence.due(done + generations - 1)
+              && convergence.converged(scorer.scoreWithCache(best), diversity(islands))) {
+        listeners.stopped(OptimizerListener.Phase.MATCH_MATRIX, flight, StopReason.CONVERGED);
+        break;
+      }
+      if (MatchMatrixLowerBound.reached(scorer.scoreWithCache(best), bound)) {
+        listeners.stopped(OptimizerListener.Phase.MATCH_MATRIX, flight, StopReason.OPTIMAL);
+        break;
+      }
+      if (deadline.passed()) {
+        listeners.stopped(OptimizerListener.Phase.MATCH_MATRIX, flight, deadline.reason());
+        break;
+      }
+    }
+    List<Schedule> schedules = new ArrayList<>();
+    for (Island island : islands) {
+      schedules.addAll(island.population.toSortedList());
+    }
+    schedules.sort(Comparator.comparingDouble(scorer::scoreWithCache));
+    return reportBest(schedules, scorer, flight, branch);
+  }
+
+  private static void sampleIslands(ProgressSampler sampler, int generation, Island[] islands, double bestScore, Schedule best) {
+    long evaluations = 0;
+    double worstScore = Double.NEGATIVE_INFINITY;
+    for (Island island : islands) {
+      evaluations += island.evaluations;
+      worstScore = Math.max(worstScore, island.population.worstScore());
+    }
+    sampler.sample(generation, evaluations, bestScore, worstScore, diversity(islands), best);
+  }
+
+  /**
+   * @return the mean diversity of the islands
+   */
+  private static double diversity(Island[] islands) {
+    double diversity = 0;
+    for (Island island : islands) {
+      diversity += ProgressSampler.diversity(island.population);
+    }
+    return diversity / islands.length;
+  }
+
+  private void migrate(Island[] islands, CostCalculatorMatchMatrix scorer, int migrants) {
+    List<List<Schedule>> emigrants = new ArrayList<>(islands.length);
+    for (Island island : islands) {
+      List<Schedule> best = new ArrayList<>();
+      List<Schedule> sorted = island.population.toSortedList();
+      for (int m = 0; m < Math.min(migrants, sorted.size()); m++) {
+        best.add(sorted.get(m).copy());
+      }
+      emigrants.add(best);
+    }
+    for (int k = 0; k < islands.length; k++) {
+      Island target = islands[(k + 1) % islands.length];
+      for (Schedule migrant : emigrants.get(k)) {
+        if (!target.index.contains(migrant.getLastFlightHash(), migrant)) {
+          target.offer(migrant, scorer.scoreWithCache(migrant));
         }
+      }
+    }
+  }
 
+  private static Schedule bestOfIslands(Island[] islands, ICostCalculator scorer) {
+    Schedule best = islands[0].population.best();
+    for (Island island : islands) {
+      Schedule candidate = island.population.best();
+      if (scorer.scoreWithCache(candidate) < scorer.scoreWithCache(best)) {
+        best = candidate;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * A population of the match matrix GA with its own RNG and reusable working state. Without the island model
+   * there is just one of them.
+   */
+  private class Island {
+    private final Population<Schedule> population;
+    private final SplittableRandom random;
+    private final FlightUndoLog undo = new FlightUndoLog();
+    private final PopulationIndex<Schedule> index = new PopulationIndex<>();
+    private long evaluations = 0;
+
+    private Island(List<Schedule> schedules, SplittableRandom random, ICostCalculator scorer) {
+      this.population = new Population<>(optProps.optMatchMatrix.individuals);
+      this.random = random;
+      for (Schedule schedule : schedules) {
+        offer(schedule, scorer.scoreWithCache(schedule));
+      }
+    }
+
+    /**
+     * Adds the schedule if it beats the worst one of a full island, which is dropped then.
+     */
+    private void offer(Schedule schedule, double score) {
+      if (!population.accepts(score)) {
+        return;
+      }
+      Schedule dropped = population.add(schedule, score);
+      index.add(schedule.getLastFlightHash(), schedule);
+      if (dropped != null) {
+        index.remove(dropped.getLastFlightHash(), dropped);
+      }
+    }
+
+    private void getOlder() {
+      for (int i = 0; i < population.size(); i++) {
+        population.get(i).getOlder();
+      }
+    }
+
+    private void evolve(CostCalculatorMatchMatrix scorer, int generations) {
+      for (int i = 0; i < generations; i++) {
+        evolveMatchMatrix(this, scorer);
+        getOlder();
       }
     }
-//        return schedules;
-    double currentValue = scorer.scoreWithCache(schedules.get(0));
-    List<Schedule> collect = schedules
-            .stream()
-            .filter(flight -> Math.abs(scorer.scoreWithCache(flight) - currentValue) < 1e-5)
-            .collect(Collectors.toList());
-    System.out.println(String.format("found %d schedules with equal costs = %.3f", collect.size(), currentValue));
-    return collect;
   }
 
   public Schedule optimizeMatchMatrix(Consumer<Schedule> saver) {
+    int threads = optProps.optMatchMatrix.threads;
+    pool = threads > 1 ? new ForkJoinPool(threads) : null;
+    try {
+      return optimizeMatchMatrixInternal(saver);
+    } finally {
+      if (pool != null) {
+        pool.shutdown();
+        pool = null;
+      }
+    }
+  }
 
-    Set<Schedule> schedulesBest = new LinkedHashSet<>();
-    Flight flight0 = Util.getRandomFlight(properties, random);
+  private Schedule optimizeMatchMatrixInternal(Consumer<Schedule> saver) {
+    listeners.phaseStarted(OptimizerListener.Phase.MATCH_MATRIX, optProps.optMatchMatrix);
+    List<Schedule> schedulesBest = new ArrayList<>();
+    seeding = Seeding.of(properties, optProps.optMatchMatrix, streams.get(RandomStreams.SEEDING));
+    lowerBound = new MatchMatrixLowerBound(properties, optProps.optMatchMatrix);
     Schedule startSchedule = new Schedule(properties);
+    Flight flight0 = seeding == null
+            ? Util.getRandomFlight(properties, streams.get(RandomStreams.START))
+            : seeding.flight(startSchedule, 0, streams.get(RandomStreams.START));
     startSchedule.add(flight0);
     schedulesBest.add(startSchedule);
+    Deadline phaseDeadline = Deadline.in(optProps.optMatchMatrix.timeBudgetMillis, cancelled);
     for (int f = 1; f < this.properties.flights; f++) {
-      System.out.println(String.format("###### Flight %d ######", f + 1));
-      Set<Schedule> nextSchedules = new LinkedHashSet<>();
-      for (Schedule schedule : schedulesBest) {
-        List<Schedule> bestFlights = getBestFlights(schedule, random, saver);
-        nextSchedules.addAll(bestFlights);
-      }
+      listeners.flightStarted(OptimizerListener.Phase.MATCH_MATRIX, f);
+      Deadline flightDeadline = phaseDeadline.share(this.properties.flights - f);
+      List<List<Schedule>> nextSchedules = expandBranches(schedulesBest, f, flightDeadline, saver);
       CostCalculatorMatchMatrix cc = new CostCalculatorMatchMatrix(properties, optProps.optMatchMatrix);
-      Schedule min = nextSchedules
-              .stream()
-              .min(Comparator.comparingDouble(cc::scoreWithCache))
-              .orElseThrow(() -> new RuntimeException("empty schedules"));
-      double costMin = cc.score(min);
-      schedulesBest = nextSchedules
-              .stream()
-              .filter(schedule -> Math.abs(cc.score(schedule) - costMin) < 1e-5)
-              .collect(Collectors.toSet());
-      System.out.println(String.format("found %d best schedules for flight %d", schedulesBest.size(), f + 1));
-      if (schedulesBest.size() > optProps.optMatchMatrix.maxBranches) {
-        List<Schedule> collect = new ArrayList<>(schedulesBest);
-        Collections.shuffle(collect, random);
-        schedulesBest = new LinkedHashSet<>(collect.subList(0, optProps.optMatchMatrix.maxBranches));
-      }
-      System.out.println("Schedule after MatchOpt:");
-      Schedule scheduleAfterMatchOpt = schedulesBest.stream().findFirst().orElseThrow(() -> new RuntimeException("empty list"));
-      Util.printCount(scheduleAfterMatchOpt.getMatchMatrix().getMatchDistribution(), false);
+      schedulesBest = BeamSearch.select(nextSchedules, cc, optProps.optMatchMatrix.maxBranches);
+      listeners.flightCompleted(OptimizerListener.Phase.MATCH_MATRIX, f, schedulesBest);
+    }
+    Schedule best = schedulesBest.stream().findFirst().orElseThrow(() -> new RuntimeException("empty list"));
+    double bestScore = new CostCalculatorMatchMatrix(properties, optProps.optMatchMatrix).scoreWithCache(best);
+    listeners.optimalityGap(OptimizerListener.Phase.MATCH_MATRIX, bestScore, lowerBound.get(properties.flights));
+    listeners.phaseCompleted(OptimizerListener.Phase.MATCH_MATRIX, best, bestScore);
+    return best;
+  }
 
+  /**
+   * Runs {@link #getBestFlights} for each branch, concurrently if a pool is configured. Each branch gets its own
+   * stream, addressed by the flight and the branch index, so the result does not depend on the number of threads.
+   * The branches share the time until {@code deadline}: each branch gets an equal part of the time remaining when it
+   * starts, concurrent branches run in waves of {@code threads} branches.
+   */
+  private List<List<Schedule>> expandBranches(List<Schedule> branches, int flight, Deadline deadline, Consumer<Schedule> saver) {
+    List<SplittableRandom> randoms = new ArrayList<>(branches.size());
+    for (int b = 0; b < branches.size(); b++) {
+      randoms.add(streams.get(RandomStreams.BRANCH, flight, b));
     }
-    return schedulesBest.stream().findFirst().orElseThrow(() -> new RuntimeException("empty list"));
+    if (pool == null || branches.size() < 2) {
+      List<List<Schedule>> res = new ArrayList<>(branches.size());
+      for (int b = 0; b < branches.size(); b++) {
+        res.add(getBestFlights(branches.get(b), flight, b, randoms.get(b), deadline.share(branches.size() - b), saver));
+      }
+      return res;
+    }
+    Object lock = new Object();
+    Consumer<Schedule> branchSaver = saver == null ? null : schedule -> {
+      synchronized (lock) {
+        saver.accept(schedule);
+      }
+    };
+    List<ForkJoinTask<List<Schedule>>> tasks = new ArrayList<>(branches.size());
+    int threads = pool.getParallelism();
+    int waves = (branches.size() + threads - 1) / threads;
+    for (int b = 0; b < branches.size(); b++) {
+      Schedule branch = branches.get(b);
+      int branchIdx = b;
+      int remainingWaves = waves - b / threads;
+      SplittableRandom branchRandom = randoms.get(b);
+      tasks.add(pool.submit(() -> getBestFlights(branch, flight, branchIdx, branchRandom,
+              deadline.share(remainingWaves), branchSaver)));
+    }
+    List<List<Schedule>> res = new ArrayList<>(branches.size());
+    for (ForkJoinTask<List<Schedule>> task : tasks) {
+      res.add(task.join());
+    }
+    return res;
   }
 
   public Schedule optimizeBoatMatrix(List<Schedule> schedulesBase, Consumer<Schedule> saver) {
 
     Set<Schedule> schedulesBest = new LinkedHashSet<>(schedulesBase);
     for (int f = 1; f < this.properties.flights; f++) {
-      System.out.println(String.format("Flight %d:", f + 1));
+      listeners.flightStarted(OptimizerListener.Phase.BOAT_SCHEDULE, f);
       Set<Schedule> nextSchedules = new LinkedHashSet<>();
 //            for (Schedule schedule : schedulesBest) {
 ////                List<Flight> bestFlights = getBestFlight4Boats(schedule, f, random, saver);
@@ -228,105 +502,186 @@ public class Optimizer {
               .stream()
               .filter(schedule -> Math.abs(cc.scoreWithCache(schedule) - costMin) < 1e-5)
               .collect(Collectors.toSet());
-      System.out.println(String.format("found %d best schedules for flight %d", schedulesBest.size(), f + 1));
       if (schedulesBest.size() > optProps.optMatchMatrix.maxBranches) {
         List<Schedule> collect = new ArrayList<>(schedulesBest);
-        Collections.shuffle(collect, random);
+        Collections.shuffle(collect, streams.get(RandomStreams.BRANCH, f));
         schedulesBest = new LinkedHashSet<>(collect.subList(0, optProps.optMatchMatrix.maxBranches));
       }
-      System.out.println("best so far:");
-      int ii = 0;
-      for (Schedule s : schedulesBest) {
-        int[] matchDistribution = s.getMatchMatrix().getMatchDistribution();
-        Util.printCount(matchDistribution, false);
-      }
+      listeners.flightCompleted(OptimizerListener.Phase.BOAT_SCHEDULE, f, new ArrayList<>(schedulesBest));
     }
     return schedulesBest.stream().findFirst().orElseThrow(() -> new RuntimeException("empty list"));
   }
 
+  /**
+   * Copies a mutation that is applied in place on {@code parent} into the population if it survives the truncation
+   * and is no duplicate. Returns false if the caller can reuse {@code costs}.
+   */
+  private static boolean admitBoatMutation(Population<PackedSchedule> population,
+                                           PopulationIndex<PackedSchedule> index,
+                                           PackedSchedule parent,
+                                           BoatScheduleCosts costs) {
+    if (!costs.isComplete() || !population.accepts(costs.getTotal())
+        || index.contains(parent.getZobristHash(), parent)) {
+      return false;
+    }
+    PackedSchedule mutation = parent.copy();
+    mutation.setBoatScheduleCosts(costs);
+    addBoatSchedule(population, index, mutation);
+    return true;
+  }
+
+  /**
+   * Adds a scored schedule to the population and the index, the truncated one leaves both.
+   */
+  private static void addBoatSchedule(Population<PackedSchedule> population,
+                                      PopulationIndex<PackedSchedule> index,
+                                      PackedSchedule schedule) {
+    index.add(schedule.getZobristHash(), schedule);
+    PackedSchedule dropped = population.add(schedule, schedule.getBoatScheduleCosts().getTotal());
+    if (dropped != null) {
+      index.remove(dropped.getZobristHash(), dropped);
+    }
+  }
+
+  /**
+   * Shuffles the boats of each race of the match matrix result, as start of {@link #optimizeBoatSchedule}.
+   */
+  public Schedule shuffleBoats(Schedule schedule) {
+    return Util.shuffleBoats(schedule, streams.get(RandomStreams.SHUFFLE_BOATS));
+  }
+
   public Schedule optimizeBoatSchedule(Schedule schedule, Consumer<Schedule> saver) {
-    List<Schedule> schedules = new ArrayList<>();
     OptBoatConfig optBoatUsage = optProps.optBoatUsage;
+    SplittableRandom random = streams.get(RandomStreams.BOAT_SCHEDULE);
+    if (optBoatUsage.strategy != Strategy.GENETIC) {
+      return optimizeBoatScheduleTrajectory(schedule, random, saver);
+    }
+    Population<PackedSchedule> population = new Population<>(optBoatUsage.individuals);
+    PopulationIndex<PackedSchedule> index = new PopulationIndex<>();
+    final CostCalculatorBoatSchedule scorer = new CostCalculatorBoatSchedule(properties, optBoatUsage);
+    Zobrist zobrist = null;
     for (int i = 0; i < optBoatUsage.individuals; i++) {
       Schedule copy = schedule.deepCopy();
       Util.shuffleBoats(copy, random);
-      schedules.add(copy);
+      PackedSchedule packed = PackedSchedule.of(copy);
+      if (zobrist == null) {
+        zobrist = new Zobrist(packed.flights, packed.races, packed.boats, properties.teams.length);
+      }
+      packed.setZobristHash(zobrist.hash(packed));
+      population.add(packed, scorer.score(packed));
+      index.add(packed.getZobristHash(), packed);
     }
     int counter = 0;
-    System.out.println(String.format("run with %s", optBoatUsage));
-    for (Schedule s : schedules) {
-      s.resetAge();
-    }
-    final CostCalculatorBoatSchedule scorer = new CostCalculatorBoatSchedule(properties, optBoatUsage);
-    for (int i = 0; i < optBoatUsage.loops; i++) {
+    listeners.phaseStarted(OptimizerListener.Phase.BOAT_SCHEDULE, optBoatUsage);
+    int lastFlight = schedule.size() - 1;
+    ProgressSampler sampler = sampler(OptimizerListener.Phase.BOAT_SCHEDULE, lastFlight, 0, optBoatUsage);
+    long evaluations = 0;
+    Deadline deadline = Deadline.in(optBoatUsage.timeBudgetMillis, cancelled);
+    ConvergenceDetector convergence = ConvergenceDetector.of(optBoatUsage);
+    BoatScheduleCosts scratch = null;
+    int loops = optBoatUsage.maxLoops();
+    for (int i = 0; i < loops; i++) {
+      // swaps are applied in place, scored incrementally and reverted by applying them again
       for (int j = 0; j < optBoatUsage.swapBoats; j++) {
-        Schedule mutation = schedules.get(random.nextInt(schedules.size()));
-        mutation = MutationUtil.swapBoatsDeepCopy(mutation, random);
-        if (!schedules.contains(mutation)) {
-          schedules.add(mutation);
-        }
+        PackedSchedule parent = population.get(random.nextInt(population.size()));
+        BoatSwap swap = MutationUtil.randomBoatSwap(parent, random);
+        MutationUtil.swapBoatsInPlace(parent, swap, zobrist);
+        BoatScheduleCosts costs = scorer.scoreBoatSwap(parent, swap, scratch, population.worstScore());
+        evaluations++;
+        scratch = admitBoatMutation(population, index, parent, costs) ? null : costs;
+        MutationUtil.swapBoatsInPlace(parent, swap, zobrist);
       }
       for (int j = 0; j < optBoatUsage.swapRaces; j++) {
-        Schedule mutation = schedules.get(random.nextInt(schedules.size()));
-        mutation = MutationUtil.swapRacesDeepCopy(mutation, random);
-        if (!schedules.contains(mutation)) {
-          schedules.add(mutation);
-        }
+        PackedSchedule parent = population.get(random.nextInt(population.size()));
+        RaceSwap swap = MutationUtil.randomRaceSwap(parent, random);
+        MutationUtil.swapRacesInPlace(parent, swap, zobrist);
+        BoatScheduleCosts costs = scorer.scoreRaceSwap(parent, swap, scratch, population.worstScore());
+        evaluations++;
+        scratch = admitBoatMutation(population, index, parent, costs) ? null : costs;
+        MutationUtil.swapRacesInPlace(parent, swap, zobrist);
       }
-      schedules.sort(Comparator.comparingDouble(scorer::scoreWithCache));
-      if (schedules.size() > optBoatUsage.individuals) {
-                   /* for (Schedule schedule : schedules.subList(individuals, schedules.size())) {
-                        hashes.remove(Integer.valueOf(schedule.hashCode()));
-                    }*/
-        schedules = new ArrayList<>(schedules.subList(0, optBoatUsage.individuals));
-      }
-      if (i == optBoatUsage.loops - 1 || (optBoatUsage.saveEveryN > 0 && counter % optBoatUsage.saveEveryN == 0)) {
-//                    System.out.println("------------  " + i + "  -----------------------");
-//                    //System.out.println("best1:" + scorer1.score(schedules.get(0)));
-//                    printQuality("best", scorer, schedules.get(0));
-////                    printQuality("middle", scorer, schedules.get(schedules.size() / 2));
-//                    printQuality("worst", scorer, schedules.get(schedules.size() - 1));
-        //System.out.println(saveFuel.score(properties, schedules.get(0)));
-        //Util.printMatchMatrix(properties, schedules.get(0));
-        BoatMatrix matchMatrix = new BoatMatrix(properties);
-        Schedule scheduleBest = schedules.get(0);
-        for (int flightIdx = 0; flightIdx < scheduleBest.size(); flightIdx++) {
-          Flight flight = scheduleBest.get(flightIdx);
-          matchMatrix.add(flight);
+      // assignments re-solve a whole flight, so they work on a copy and are scored from scratch
+      for (int j = 0; j < optBoatUsage.assignments; j++) {
+        PackedSchedule parent = population.get(random.nextInt(population.size()));
+        int flight = random.nextInt(parent.flights);
+        byte[] boats = scorer.optimalBoats(parent, flight);
+        if (Arrays.equals(boats, 0, boats.length, parent.teams, parent.offset(flight), parent.offset(flight + 1))) {
+          continue;
+        }
+        PackedSchedule mutation = parent.copy();
+        mutation.setBoats(flight, boats);
+        mutation.setZobristHash(zobrist.hash(mutation));
+        evaluations++;
+        if (population.accepts(scorer.score(mutation)) && !index.contains(mutation.getZobristHash(), mutation)) {
+          addBoatSchedule(population, index, mutation);
         }
-        int[] boatDistribution = matchMatrix.getBoatDistribution();
-        Util.printCount(boatDistribution, false);
-        int[] ii = getInterFlightStat(schedules.get(0), properties.numTeams);
-        double best = scorer.score(schedules.get(0));
-        double worst = scorer.score(schedules.get(schedules.size() - 1));
-        System.out.println(String.format("costs = %.3f .. %.3f", best, worst));
-        System.out.println(String.format("saved Shuttles: in habour: %d at sea: %d - boat changes: %d", ii[0], ii[1], ii[2]));
       }
-      for (Schedule s : schedules) {
-        s.getOlder();
+      if (sampler != null && sampler.due(i)) {
+        sampler.sample(i, evaluations, population.bestScore(), population.worstScore(),
+                ProgressSampler.diversity(population), population.best().toSchedule(properties));
+      }
+      for (int k = 0; k < population.size(); k++) {
+        population.get(k).getOlder();
       }
       counter++;
-      if (optBoatUsage.earlyStopping > 0 && schedules.get(0).getAge() >= optBoatUsage.earlyStopping) {
-        System.out.println("Early Stopping applied");
+      if (optBoatUsage.earlyStopping > 0 && population.best().getAge() >= optBoatUsage.earlyStopping) {
+        listeners.stopped(OptimizerListener.Phase.BOAT_SCHEDULE, lastFlight, StopReason.EARLY_STOPPING);
         break;
       }
-      double best = scorer.score(schedules.get(0));
-      double worst = scorer.score(schedules.get(schedules.size() - 1));
+      double best = population.bestScore();
+      double worst = population.getScore(0);
 
       if (Math.abs(best - worst) < 1e-5) {
-        System.out.println("best and worst are the same - no better solution can be expected - save and break!");
+        listeners.stopped(OptimizerListener.Phase.BOAT_SCHEDULE, lastFlight, StopReason.UNIFORM_POPULATION);
         if (saver != null) {
-          System.out.println("save!");
-          saver.accept(schedules.get(0));
+          saver.accept(population.best().toSchedule(properties));
         }
         break;
       }
       if (saver != null && optBoatUsage.saveEveryN > 0 && counter % optBoatUsage.saveEveryN == 0) {
-        saver.accept(schedules.get(0));
+        saver.accept(population.best().toSchedule(properties));
+      }
+      if (convergence != null && convergence.due(i)
+              && convergence.converged(population.bestScore(), ProgressSampler.diversity(population))) {
+        listeners.stopped(OptimizerListener.Phase.BOAT_SCHEDULE, lastFlight, StopReason.CONVERGED);
+        break;
+      }
+      if (deadline.passed()) {
+        listeners.stopped(OptimizerListener.Phase.BOAT_SCHEDULE, lastFlight, deadline.reason());
+        break;
       }
     }
-    return schedules.get(0);
+    Schedule best = population.best().toSchedule(properties);
+    listeners.phaseCompleted(OptimizerListener.Phase.BOAT_SCHEDULE, best, population.bestScore());
+    return best;
+  }
 
+  /**
+   * Single-trajectory variant of {@link #optimizeBoatSchedule}: the configured {@link SearchStrategy} improves the
+   * given schedule itself, {@code swapBoats + swapRaces} steps per generation.
+   */
+  private Schedule optimizeBoatScheduleTrajectory(Schedule schedule, SplittableRandom random, Consumer<Schedule> saver) {
+    OptBoatConfig optBoatUsage = optProps.optBoatUsage;
+    final CostCalculatorBoatSchedule scorer = new CostCalculatorBoatSchedule(properties, optBoatUsage);
+    PackedSchedule packed = PackedSchedule.of(schedule.deepCopy());
+    Zobrist zobrist = new Zobrist(packed.flights, packed.races, packed.boats, properties.teams.length);
+    packed.setZobristHash(zobrist.hash(packed));
+    BoatScheduleNeighborhood neighborhood = new BoatScheduleNeighborhood(packed, scorer, zobrist,
+            optBoatUsage.swapBoats, optBoatUsage.swapRaces);
+    listeners.phaseStarted(OptimizerListener.Phase.BOAT_SCHEDULE, optBoatUsage);
+    int lastFlight = schedule.size() - 1;
+    TrajectorySearch<PackedSchedule> search = new TrajectorySearch<>(neighborhood, SearchStrategy.of(optBoatUsage),
+            optBoatUsage.swapBoats + optBoatUsage.swapRaces, 1, random);
+    StopReason reason = search.run(optBoatUsage, Deadline.in(optBoatUsage.timeBudgetMillis, cancelled),
+            Double.NEGATIVE_INFINITY,
+            sampler(OptimizerListener.Phase.BOAT_SCHEDULE, lastFlight, 0, optBoatUsage),
+            best -> best.toSchedule(properties), saver);
+    if (reason != null) {
+      listeners.stopped(OptimizerListener.Phase.BOAT_SCHEDULE, lastFlight, reason);
+    }
+    Schedule best = search.best().get(0).toSchedule(properties);
+    listeners.phaseCompleted(OptimizerListener.Phase.BOAT_SCHEDULE, best, search.bestScore());
+    return best;
   }
 
   public static void main(String[] args) throws Exception {
@@ -387,6 +742,13 @@ public class Optimizer {
             "if given, save best schedule to this file as csv-structure");
     outCsv.setRequired(false);
     options.addOption(outCsv);
+    Option portfolio = new Option(
+            "pf",
+            "portfolio",
+            true,
+            "if given, race the standard portfolio of configurations for this many milliseconds and keep the winner");
+    portfolio.setRequired(false);
+    options.addOption(portfolio);
 
     CommandLineParser parser = new DefaultParser();
     HelpFormatter formatter = new HelpFormatter();
@@ -411,7 +773,7 @@ public class Optimizer {
     String outPdfValue = cmd.getOptionValue(outPdf, "pairing_list.pdf");
     String outCsvValue = cmd.getOptionValue(outPdf, "pairing_list.csv");
     String inputValue = cmd.getOptionValue(input, null);
-    if (inputValue != null && optimizationProps.optBoatUsage.loops + optimizationProps.optMatchMatrix.loops > 0) {
+    if (inputValue != null && (optimizationProps.optBoatUsage.maxLoops() > 0 || optimizationProps.optMatchMatrix.maxLoops() > 0)) {
       throw new RuntimeException("loaded schedule but optimizations are activated");
     }
     Schedule schedule = null;
@@ -423,17 +785,26 @@ public class Optimizer {
       scheduleProps.teams = teams.toArray(new String[0]);
     }
     DisplayConfig displayProps = DisplayConfig.readYaml(displayConfigValue);
-    Random random = new Random(optimizationProps.seed);
     Saver saver = new Saver(outPdfValue,outputValue,outCsvValue, displayProps,scheduleProps);
 //        schedule = inputValue == null ?
 //                Util.getRandomSchedule(scheduleProps, random) :
 //                Schedule.readYaml(new File(inputValue), scheduleProps);
+    String portfolioValue = cmd.getOptionValue(portfolio, null);
+    if (schedule == null && portfolioValue != null) {
+      Portfolio.Result result = Portfolio.standard(scheduleProps, optimizationProps).run(Long.parseLong(portfolioValue));
+      for (Portfolio.Outcome outcome : result.outcomes) {
+        System.out.println(outcome);
+      }
+      System.out.println("winner: " + result.winner);
+      schedule = result.schedule;
+    }
     if (schedule == null) {
       Optimizer optimizer = new Optimizer();
-      optimizer.init(scheduleProps, optimizationProps, random);
+      optimizer.init(scheduleProps, optimizationProps);
+      optimizer.addListener(new ConsoleListener());
       schedule = optimizer.optimizeMatchMatrix(saver);
-      if (optimizationProps.optBoatUsage.loops > 0) {
-        schedule = Util.shuffleBoats(schedule, random);
+      if (optimizationProps.optBoatUsage.maxLoops() > 0) {
+        schedule = optimizer.shuffleBoats(schedule);
       }
       schedule = optimizer.optimizeBoatSchedule(schedule, saver);
     }
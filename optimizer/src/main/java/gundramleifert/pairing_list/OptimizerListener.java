@@ -0,0 +1,60 @@
+package gundramleifert.pairing_list;
+
+import gundramleifert.pairing_list.configs.OptConfig;
+import gundramleifert.pairing_list.types.Schedule;
+
+import java.util.List;
+
+/**
+ * Receives the progress of an {@link Optimizer} run. All methods are no-ops by default. The optimizer serializes the
+ * calls, also if branches or islands run on several threads, so implementations need not be thread-safe.
+ * <p>
+ * {@link #progress} is sampled every {@link OptConfig#showEveryN} generations and after the last one. Without
+ * listeners the optimizer neither samples nor formats anything. Flights are 0-based.
+ */
+public interface OptimizerListener {
+
+    enum Phase {
+        MATCH_MATRIX,
+        BOAT_SCHEDULE
+    }
+
+    default void phaseStarted(Phase phase, OptConfig config) {
+    }
+
+    default void flightStarted(Phase phase, int flight) {
+    }
+
+    default void progress(OptimizerProgress progress) {
+    }
+
+    /**
+     * @param equalBest the number of final individuals of the branch with the same costs as the best one
+     */
+    default void branchCompleted(Phase phase, int flight, int branch, double bestScore, int equalBest) {
+    }
+
+    /**
+     * @param kept the schedules kept for the next flight, best first
+     */
+    default void flightCompleted(Phase phase, int flight, List<Schedule> kept) {
+    }
+
+    /**
+     * A population stopped before its loops were done. Branches and islands of the match matrix phase report
+     * separately, so there may be several calls per flight.
+     */
+    default void stopped(Phase phase, int flight, StopReason reason) {
+    }
+
+    /**
+     * The costs of the best schedule of the phase and a lower bound of the costs of any schedule, see
+     * {@link gundramleifert.pairing_list.cost_calculators.MatchMatrixLowerBound}. Called before
+     * {@link #phaseCompleted}, only for the match matrix phase.
+     */
+    default void optimalityGap(Phase phase, double bestScore, double lowerBound) {
+    }
+
+    default void phaseCompleted(Phase phase, Schedule best, double bestScore) {
+    }
+}
@@ -0,0 +1,80 @@
+package gundramleifert.pairing_list;
+
+import gundramleifert.pairing_list.configs.OptConfig;
+import gundramleifert.pairing_list.types.Schedule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The listeners of an {@link Optimizer}, notified one after the other. Calls are synchronized because concurrent
+ * branches and islands report from several threads.
+ */
+class OptimizerListeners implements OptimizerListener {
+
+    private final List<OptimizerListener> listeners = new ArrayList<>();
+
+    synchronized void add(OptimizerListener listener) {
+        listeners.add(listener);
+    }
+
+    synchronized boolean isEmpty() {
+        return listeners.isEmpty();
+    }
+
+    @Override
+    public synchronized void phaseStarted(Phase phase, OptConfig config) {
+        for (OptimizerListener listener : listeners) {
+            listener.phaseStarted(phase, config);
+        }
+    }
+
+    @Override
+    public synchronized void flightStarted(Phase phase, int flight) {
+        for (OptimizerListener listener : listeners) {
+            listener.flightStarted(phase, flight);
+        }
+    }
+
+    @Override
+    public synchronized void progress(OptimizerProgress progress) {
+        for (OptimizerListener listener : listeners) {
+            listener.progress(progress);
+        }
+    }
+
+    @Override
+    public synchronized void branchCompleted(Phase phase, int flight, int branch, double bestScore, int equalBest) {
+        for (OptimizerListener listener : listeners) {
+            listener.branchCompleted(phase, flight, branch, bestScore, equalBest);
+        }
+    }
+
+    @Override
+    public synchronized void flightCompleted(Phase phase, int flight, List<Schedule> kept) {
+        for (OptimizerListener listener : listeners) {
+            listener.flightCompleted(phase, flight, kept);
+        }
+    }
+
+    @Override
+    public synchronized void stopped(Phase phase, int flight, StopReason reason) {
+        for (OptimizerListener listener : listeners) {
+            listener.stopped(phase, flight, reason);
+        }
+    }
+
+    @Override
+    public synchronized void optimalityGap(Phase phase, double bestScore, double lowerBound) {
+        for (OptimizerListener listener : listeners) {
+            listener.optimalityGap(phase, bestScore, lowerBound);
+        }
+    }
+
+    @Override
+    public synchronized void phaseCompleted(Phase phase, Schedule best, double bestScore) {
+        for (OptimizerListener listener : listeners) {
+            listener.phaseCompleted(phase, best, bestScore);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package gundramleifert.pairing_list;
+
+import gundramleifert.pairing_list.types.Schedule;
+
+/**
+ * A progress sample of one population. Rates refer to the time since the previous sample of the same population;
+ * the allocation rate is the one of the whole JVM and {@code NaN} if the JVM does not measure allocations.
+ */
+public class OptimizerProgress {
+    public final OptimizerListener.Phase phase;
+    public final int flight;
+    public final int branch;
+    public final int generation;
+    public final int generations;
+    public final double bestScore;
+    public final double worstScore;
+    /**
+     * share of the individuals with distinct costs, 1 if all costs differ
+     */
+    public final double diversity;
+    public final double evaluationsPerSecond;
+    public final double allocatedBytesPerSecond;
+    public final Schedule best;
+
+    public OptimizerProgress(OptimizerListener.Phase phase, int flight, int branch, int generation, int generations,
+                             double bestScore, double worstScore, double diversity,
+                             double evaluationsPerSecond, double allocatedBytesPerSecond, Schedule best) {
+        this.phase = phase;
+        this.flight = flight;
+        this.branch = branch;
+        this.generation = generation;
+        this.generations = generations;
+        this.bestScore = bestScore;
+        this.worstScore = worstScore;
+        this.diversity = diversity;
+        this.evaluationsPerSecond = evaluationsPerSecond;
+        this.allocatedBytesPerSecond = allocatedBytesPerSecond;
+        this.best = best;
+    }
+}
@@ -367,10 +367,10 @@ public class PdfCreator implements AutoCloseable {
             InterFlightStat interFlightStat =
                     CostCalculatorBoatSchedule.getInterFlightStat(schedule.get(i - 1), schedule.get(i), scheduleConfig.numTeams);
             table.addCell(getCell(String.format("%d -> %d", i, i + 1)));
-            table.addCell(getCell(toString(clubs, interFlightStat.teamsStayOnBoat)));
-            table.addCell(getCell(toString(clubs, interFlightStat.teamsAtWaterAtLastRace)));
-            table.addCell(getCell(toString(clubs, interFlightStat.teamsAtWaterAtFirstRace)));
-            table.addCell(getCell(toString(clubs, interFlightStat.teamsChangeBoats)));
+            table.addCell(getCell(toString(clubs, interFlightStat.getTeamsStayOnBoat())));
+            table.addCell(getCell(toString(clubs, interFlightStat.getTeamsAtWaterAtLastRace())));
+            table.addCell(getCell(toString(clubs, interFlightStat.getTeamsAtWaterAtFirstRace())));
+            table.addCell(getCell(toString(clubs, interFlightStat.getTeamsChangeBoats())));
         }
         doc.add(table);
         isEmptyPage = false;
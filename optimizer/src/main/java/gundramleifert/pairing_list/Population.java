@@ -0,0 +1,163 @@
+package gundramleifert.pairing_list;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The survivors of a GA: a bounded max-heap of at most {@code capacity} individuals with the worst one at the root.
+ * An offspring that is not better than the worst survivor of a full population is rejected before it is even
+ * copied, a better one replaces the worst in O(log n) - so no generation has to sort or truncate a list. Equal
+ * scores are ordered by insertion and the newer individual counts as worse, which is the order a stable sort with
+ * appended offspring gives. The arrays are allocated once.
+ */
+public class Population<T> {
+    private final Object[] items;
+    private final double[] scores;
+    private final long[] sequence;
+    private long nextSequence = 0;
+    private int size = 0;
+
+    public Population(int capacity) {
+        items = new Object[capacity];
+        scores = new double[capacity];
+        sequence = new long[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == items.length;
+    }
+
+    /**
+     * The individual at {@code index} in heap order, which is no order by score except that index 0 is the worst.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        return (T) items[index];
+    }
+
+    public double getScore(int index) {
+        return scores[index];
+    }
+
+    /**
+     * The score an offspring has to beat to be accepted, infinite as long as the population is not full.
+     */
+    public double worstScore() {
+        return isFull() ? scores[0] : Double.POSITIVE_INFINITY;
+    }
+
+    public boolean accepts(double score) {
+        return score < worstScore();
+    }
+
+    /**
+     * Adds an individual, which has to be {@link #accepts accepted}. Returns the individual that was dropped for it,
+     * or null if the population was not full.
+     */
+    public T add(T item, double score) {
+        if (!accepts(score)) {
+            throw new IllegalArgumentException("score " + score + " is not better than the worst " + worstScore());
+        }
+        T dropped = null;
+        int i;
+        if (isFull()) {
+            dropped = get(0);
+            i = 0;
+        } else {
+            i = size++;
+        }
+        items[i] = item;
+        scores[i] = score;
+        sequence[i] = nextSequence++;
+        if (dropped == null) {
+            siftUp(i);
+        } else {
+            siftDown(i);
+        }
+        return dropped;
+    }
+
+    public T best() {
+        return get(bestIndex());
+    }
+
+    public double bestScore() {
+        return scores[bestIndex()];
+    }
+
+    private int bestIndex() {
+        int best = 0;
+        for (int i = 1; i < size; i++) {
+            if (worse(best, i)) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * All individuals, best first.
+     */
+    public List<T> toSortedList() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (i, j) -> worse(i, j) ? 1 : worse(j, i) ? -1 : 0);
+        List<T> res = new ArrayList<>(size);
+        for (int i : order) {
+            res.add(get(i));
+        }
+        return res;
+    }
+
+    private boolean worse(int i, int j) {
+        int cmp = Double.compare(scores[i], scores[j]);
+        return cmp > 0 || cmp == 0 && sequence[i] > sequence[j];
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!worse(i, parent)) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && worse(child + 1, child)) {
+                child++;
+            }
+            if (!worse(child, i)) {
+                return;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        Object item = items[i];
+        items[i] = items[j];
+        items[j] = item;
+        double score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+        long seq = sequence[i];
+        sequence[i] = sequence[j];
+        sequence[j] = seq;
+    }
+}
@@ -0,0 +1,97 @@
+package gundramleifert.pairing_list;
+
+/**
+ * Open-addressing hash set of the individuals of a population, keyed by their {@link Zobrist} hash. Individuals are
+ * compared with {@code equals} only if their hashes are equal, so a duplicate check is O(1) instead of a deep
+ * comparison with every individual. Several individuals may share a hash.
+ */
+public class PopulationIndex<T> {
+
+    private long[] keys = new long[64];
+    private Object[] values = new Object[64];
+    private int size = 0;
+
+    private int mask() {
+        return keys.length - 1;
+    }
+
+    private int home(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & mask();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void add(long hash, T value) {
+        if (2 * (size + 1) > keys.length) {
+            grow();
+        }
+        int i = home(hash);
+        while (values[i] != null) {
+            i = (i + 1) & mask();
+        }
+        keys[i] = hash;
+        values[i] = value;
+        size++;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                @SuppressWarnings("unchecked")
+                T value = (T) oldValues[i];
+                add(oldKeys[i], value);
+            }
+        }
+    }
+
+    /**
+     * True if an individual other than {@code candidate} itself equals it. The candidate may be an individual of the
+     * population which currently has a mutation applied in place and {@code hash} is the hash of that mutation.
+     */
+    public boolean contains(long hash, T candidate) {
+        for (int i = home(hash); values[i] != null; i = (i + 1) & mask()) {
+            if (keys[i] == hash && values[i] != candidate && values[i].equals(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes exactly the given individual (by identity).
+     */
+    public boolean remove(long hash, T value) {
+        int i = home(hash);
+        while (values[i] != value) {
+            if (values[i] == null) {
+                return false;
+            }
+            i = (i + 1) & mask();
+        }
+        // backward shift deletion keeps the probe sequences intact without tombstones
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask();
+            if (values[j] == null) {
+                break;
+            }
+            int k = home(keys[j]);
+            if (i <= j ? (i < k && k <= j) : (i < k || k <= j)) {
+                continue;
+            }
+            keys[i] = keys[j];
+            values[i] = values[j];
+            i = j;
+        }
+        values[i] = null;
+        size--;
+        return true;
+    }
+}
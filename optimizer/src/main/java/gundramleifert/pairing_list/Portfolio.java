@@ -0,0 +1,288 @@
+package gundramleifert.pairing_list;
+
+import gundramleifert.pairing_list.configs.OptimizationConfig;
+import gundramleifert.pairing_list.configs.ScheduleConfig;
+import gundramleifert.pairing_list.configs.Strategy;
+import gundramleifert.pairing_list.cost_calculators.CostCalculatorBoatSchedule;
+import gundramleifert.pairing_list.cost_calculators.CostCalculatorMatchMatrix;
+import gundramleifert.pairing_list.types.Schedule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Races several optimizer configurations - strategies, seeds, swap mixes - against each other with a shared time
+ * budget. Each entry runs its own {@link Optimizer} on its own thread (plus the threads of its config). During the
+ * match matrix phase the best schedule of each entry is scored after each flight; from {@link #setRacingStart the
+ * racing start} on, an entry whose costs are more than {@link #setCancelMargin the margin} above the best costs of
+ * another entry at the same flight is cancelled, so its cores go to the leaders.
+ * <p>
+ * All entries are scored with the cost weights of the first entry. The winner is the entry with the lowest match
+ * matrix costs, ties are broken by the boat schedule costs. The entries run in one executor scope, which is only
+ * left when all of them have returned; if one fails, the others are cancelled and the failure is rethrown.
+ */
+public class Portfolio {
+
+    private final ScheduleConfig properties;
+    private final List<String> names = new ArrayList<>();
+    private final List<OptimizationConfig> configs = new ArrayList<>();
+    private double cancelMargin = 0.05;
+    private double racingStart = 0.5;
+
+    public Portfolio(ScheduleConfig properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * The base configuration, the island model, simulated annealing, tabu search and a GA with another swap mix -
+     * each with its own seed derived from the one of {@code base}.
+     */
+    public static Portfolio standard(ScheduleConfig properties, OptimizationConfig base) {
+        Portfolio portfolio = new Portfolio(properties);
+        portfolio.add("genetic", base);
+        portfolio.add("islands", variant(base, 1, config -> config.optMatchMatrix.islands = 4));
+        portfolio.add("annealing", variant(base, 2, config -> {
+            config.optMatchMatrix.strategy = Strategy.SIMULATED_ANNEALING;
+            config.optBoatUsage.strategy = Strategy.SIMULATED_ANNEALING;
+        }));
+        portfolio.add("tabu", variant(base, 3, config -> {
+            config.optMatchMatrix.strategy = Strategy.TABU_SEARCH;
+            config.optBoatUsage.strategy = Strategy.TABU_SEARCH;
+        }));
+        portfolio.add("swap-mix", variant(base, 4, config -> {
+            config.optMatchMatrix.swapTeams = 2 * Math.max(1, config.optMatchMatrix.swapTeams);
+            int swapBoats = config.optBoatUsage.swapBoats;
+            config.optBoatUsage.swapBoats = config.optBoatUsage.swapRaces;
+            config.optBoatUsage.swapRaces = swapBoats;
+        }));
+        return portfolio;
+    }
+
+    private static OptimizationConfig variant(OptimizationConfig base, int seedOffset,
+                                              Consumer<OptimizationConfig> change) {
+        OptimizationConfig config = base.copy();
+        config.seed = base.seed + seedOffset;
+        change.accept(config);
+        return config;
+    }
+
+    /**
+     * Adds a copy of {@code config} - its time budgets are overwritten by the run.
+     */
+    public Portfolio add(String name, OptimizationConfig config) {
+        names.add(name);
+        configs.add(config.copy());
+        return this;
+    }
+
+    /**
+     * @param cancelMargin relative distance to the best costs at which an entry counts as clearly behind
+     */
+    public void setCancelMargin(double cancelMargin) {
+        this.cancelMargin = cancelMargin;
+    }
+
+    /**
+     * @param racingStart share of the flights after which entries are compared - the first flights are cheap and
+     *                    hardly tell the entries apart
+     */
+    public void setRacingStart(double racingStart) {
+        this.racingStart = racingStart;
+    }
+
+    public static class Outcome {
+        public final String name;
+        public final boolean cancelled;
+        public final double matchMatrixScore;
+        public final double boatScore;
+        public final long millis;
+
+        public Outcome(String name, boolean cancelled, double matchMatrixScore, double boatScore, long millis) {
+            this.name = name;
+            this.cancelled = cancelled;
+            this.matchMatrixScore = matchMatrixScore;
+            this.boatScore = boatScore;
+            this.millis = millis;
+        }
+
+        @Override
+        public String toString() {
+            return cancelled
+                    ? String.format("%s: cancelled after %d ms", name, millis)
+                    : String.format("%s: costs = %.3f / %.3f in %d ms", name, matchMatrixScore, boatScore, millis);
+        }
+    }
+
+    public static class Result {
+        public final String winner;
+        public final Schedule schedule;
+        public final double matchMatrixScore;
+        public final double boatScore;
+        /**
+         * the outcome of each entry, in the order they were added
+         */
+        public final List<Outcome> outcomes;
+
+        public Result(String winner, Schedule schedule, double matchMatrixScore, double boatScore,
+                      List<Outcome> outcomes) {
+            this.winner = winner;
+            this.schedule = schedule;
+            this.matchMatrixScore = matchMatrixScore;
+            this.boatScore = boatScore;
+            this.outcomes = outcomes;
+        }
+    }
+
+    /**
+     * @param budgetMillis the time all entries share, no budget if not positive - then the loops of the entries
+     *                     decide. As in {@link AutoTuner}, {@link AutoTuner#MATCH_MATRIX_SHARE} of it goes to the
+     *                     match matrix phase.
+     * @throws IllegalStateException if an entry failed
+     */
+    public Result run(long budgetMillis) throws InterruptedException {
+        if (configs.isEmpty()) {
+            throw new IllegalStateException("no entries");
+        }
+        long start = System.nanoTime();
+        CostCalculatorMatchMatrix matchMatrixScorer = new CostCalculatorMatchMatrix(properties, configs.get(0).optMatchMatrix);
+        CostCalculatorBoatSchedule boatScorer = new CostCalculatorBoatSchedule(properties, configs.get(0).optBoatUsage);
+        Optimizer[] optimizers = new Optimizer[configs.size()];
+        Race race = new Race(optimizers, matchMatrixScorer);
+        for (int i = 0; i < optimizers.length; i++) {
+            OptimizationConfig config = configs.get(i);
+            if (budgetMillis > 0) {
+                config.optMatchMatrix.timeBudgetMillis = (long) (budgetMillis * AutoTuner.MATCH_MATRIX_SHARE);
+            }
+            optimizers[i] = new Optimizer();
+            optimizers[i].init(properties, config);
+            int entry = i;
+            optimizers[i].addListener(new OptimizerListener() {
+                @Override
+                public void flightCompleted(Phase phase, int flight, List<Schedule> kept) {
+                    if (phase == Phase.MATCH_MATRIX) {
+                        race.report(entry, flight, kept.get(0));
+                    }
+                }
+            });
+        }
+        List<Outcome> outcomes = new ArrayList<>();
+        Schedule[] schedules = new Schedule[optimizers.length];
+        try (ExecutorService scope = Executors.newFixedThreadPool(optimizers.length)) {
+            List<Future<Outcome>> futures = new ArrayList<>();
+            for (int i = 0; i < optimizers.length; i++) {
+                int entry = i;
+                futures.add(scope.submit(() -> {
+                    try {
+                        return runEntry(entry, optimizers[entry], start, budgetMillis,
+                                matchMatrixScorer, boatScorer, schedules);
+                    } catch (RuntimeException | Error e) {
+                        // cancel the others right away, the futures are only joined in submission order
+                        cancelAll(optimizers);
+                        throw e;
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    outcomes.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    cancelAll(optimizers);
+                    throw new IllegalStateException("portfolio entry " + names.get(i) + " failed", e.getCause());
+                } catch (InterruptedException e) {
+                    cancelAll(optimizers);
+                    throw e;
+                }
+            }
+        }
+        int winner = -1;
+        for (int i = 0; i < outcomes.size(); i++) {
+            Outcome outcome = outcomes.get(i);
+            if (!outcome.cancelled && (winner < 0 || better(outcome, outcomes.get(winner)))) {
+                winner = i;
+            }
+        }
+        Outcome best = outcomes.get(winner);
+        return new Result(best.name, schedules[winner], best.matchMatrixScore, best.boatScore, outcomes);
+    }
+
+    private Outcome runEntry(int entry, Optimizer optimizer, long start, long budgetMillis,
+                             CostCalculatorMatchMatrix matchMatrixScorer, CostCalculatorBoatSchedule boatScorer,
+                             Schedule[] schedules) {
+        OptimizationConfig config = configs.get(entry);
+        Schedule schedule = optimizer.optimizeMatchMatrix(null);
+        double matchMatrixScore = matchMatrixScorer.score(schedule);
+        double boatScore = Double.NaN;
+        if (budgetMillis > 0 && config.optBoatUsage != null) {
+            long elapsed = (System.nanoTime() - start) / 1_000_000L;
+            config.optBoatUsage.timeBudgetMillis = Math.max(1, budgetMillis - elapsed);
+        }
+        if (!optimizer.isCancelled() && config.optBoatUsage != null && config.optBoatUsage.maxLoops() > 0) {
+            schedule = optimizer.optimizeBoatSchedule(optimizer.shuffleBoats(schedule), null);
+            boatScore = boatScorer.score(schedule);
+        }
+        schedules[entry] = schedule;
+        long millis = (System.nanoTime() - start) / 1_000_000L;
+        return new Outcome(names.get(entry), optimizer.isCancelled(), matchMatrixScore, boatScore, millis);
+    }
+
+    private static void cancelAll(Optimizer[] optimizers) {
+        for (Optimizer optimizer : optimizers) {
+            optimizer.cancel();
+        }
+    }
+
+    private static boolean better(Outcome a, Outcome b) {
+        if (Math.abs(a.matchMatrixScore - b.matchMatrixScore) >= 1e-5) {
+            return a.matchMatrixScore < b.matchMatrixScore;
+        }
+        return !Double.isNaN(a.boatScore) && (Double.isNaN(b.boatScore) || a.boatScore < b.boatScore);
+    }
+
+    /**
+     * The costs of the best schedule of each entry after each flight of the match matrix phase. Entries report from
+     * their own threads.
+     */
+    private class Race {
+        private final Optimizer[] optimizers;
+        private final CostCalculatorMatchMatrix scorer;
+        private final double[][] costs;
+        private final int firstFlight;
+
+        private Race(Optimizer[] optimizers, CostCalculatorMatchMatrix scorer) {
+            this.optimizers = optimizers;
+            this.scorer = scorer;
+            this.costs = new double[optimizers.length][properties.flights];
+            for (double[] entryCosts : costs) {
+                Arrays.fill(entryCosts, Double.NaN);
+            }
+            this.firstFlight = (int) Math.ceil(racingStart * (properties.flights - 1));
+        }
+
+        synchronized void report(int entry, int flight, Schedule best) {
+            if (optimizers[entry].isCancelled()) {
+                return;
+            }
+            costs[entry][flight] = scorer.score(best);
+            if (flight < firstFlight) {
+                return;
+            }
+            double leader = Double.POSITIVE_INFINITY;
+            for (int e = 0; e < costs.length; e++) {
+                if (!optimizers[e].isCancelled() && !Double.isNaN(costs[e][flight])) {
+                    leader = Math.min(leader, costs[e][flight]);
+                }
+            }
+            for (int e = 0; e < costs.length; e++) {
+                if (!optimizers[e].isCancelled() && costs[e][flight] > leader * (1 + cancelMargin) + 1e-5) {
+                    optimizers[e].cancel();
+                }
+            }
+        }
+    }
+}
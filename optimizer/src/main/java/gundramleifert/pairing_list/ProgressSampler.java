@@ -0,0 +1,96 @@
+package gundramleifert.pairing_list;
+
+import gundramleifert.pairing_list.types.Schedule;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Samples the progress of one population for the {@link OptimizerListener}s every {@code every} generations and
+ * after the last one. Only created if somebody listens.
+ */
+class ProgressSampler {
+
+    private static final double EPS = 1e-5;
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private final OptimizerListener listener;
+    private final OptimizerListener.Phase phase;
+    private final int flight;
+    private final int branch;
+    private final int generations;
+    private final int every;
+    private int next = 0;
+    private long nanos;
+    private long evaluations;
+    private long allocated;
+
+    ProgressSampler(OptimizerListener listener, OptimizerListener.Phase phase, int flight, int branch,
+                    int generations, int every) {
+        this.listener = listener;
+        this.phase = phase;
+        this.flight = flight;
+        this.branch = branch;
+        this.generations = generations;
+        this.every = every;
+        this.nanos = System.nanoTime();
+        this.allocated = allocatedBytes();
+    }
+
+    /**
+     * @return true if a sample is due after the given 0-based generation
+     */
+    boolean due(int generation) {
+        if (generation == generations - 1) {
+            return true;
+        }
+        if (every <= 0 || generation < next) {
+            return false;
+        }
+        next = (generation / every + 1) * every;
+        return true;
+    }
+
+    void sample(int generation, long evaluations, double bestScore, double worstScore, double diversity,
+                Schedule best) {
+        long now = System.nanoTime();
+        long allocatedNow = allocatedBytes();
+        double seconds = Math.max(1, now - nanos) / 1e9;
+        double allocationRate = allocatedNow < 0 || allocated < 0 ? Double.NaN : (allocatedNow - allocated) / seconds;
+        listener.progress(new OptimizerProgress(phase, flight, branch, generation, generations,
+                bestScore, worstScore, diversity, (evaluations - this.evaluations) / seconds, allocationRate, best));
+        this.nanos = now;
+        this.evaluations = evaluations;
+        this.allocated = allocatedNow;
+    }
+
+    /**
+     * @return the share of individuals with distinct costs
+     */
+    static double diversity(Population<?> population) {
+        double[] scores = new double[population.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = population.getScore(i);
+        }
+        Arrays.sort(scores);
+        int distinct = scores.length == 0 ? 0 : 1;
+        for (int i = 1; i < scores.length; i++) {
+            if (scores[i] - scores[i - 1] >= EPS) {
+                distinct++;
+            }
+        }
+        return scores.length == 0 ? 1.0 : (double) distinct / scores.length;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getTotalThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            return bean;
+        }
+        return null;
+    }
+}
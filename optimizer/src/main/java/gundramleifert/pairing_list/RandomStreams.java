@@ -0,0 +1,46 @@
+package gundramleifert.pairing_list;
+
+import java.util.SplittableRandom;
+
+/**
+ * Independent random streams derived from {@link gundramleifert.pairing_list.configs.OptimizationConfig#seed}.
+ * A stream is addressed by a path of ids - its purpose and e.g. the flight and branch it is used for - and
+ * seeded by hashing the path together with the seed. So a stream neither depends on other streams nor on the
+ * order or the thread in which it is created, and the same seed gives the same schedule for any number of threads.
+ */
+public class RandomStreams {
+
+    /** creates the first flight */
+    public static final int START = 0;
+    /** one stream per (flight, branch) of the match matrix beam search */
+    public static final int BRANCH = 1;
+    /** shuffles the boats of the match matrix result before the boat schedule optimization */
+    public static final int SHUFFLE_BOATS = 2;
+    /** the boat schedule GA */
+    public static final int BOAT_SCHEDULE = 3;
+    /** lays out the teams of the constructive seeding of the match matrix */
+    public static final int SEEDING = 4;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+
+    public RandomStreams(long seed) {
+        this.seed = seed;
+    }
+
+    public SplittableRandom get(long... path) {
+        long h = mix(seed);
+        for (long id : path) {
+            h = mix(h + GOLDEN_GAMMA * (id + 1));
+        }
+        return new SplittableRandom(h);
+    }
+
+    // finalizer of SplitMix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
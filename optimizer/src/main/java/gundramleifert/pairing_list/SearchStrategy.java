@@ -0,0 +1,42 @@
+package gundramleifert.pairing_list;
+
+import gundramleifert.pairing_list.configs.OptConfig;
+import gundramleifert.pairing_list.configs.Strategy;
+
+import java.util.SplittableRandom;
+
+/**
+ * A single-trajectory search: improves the working solution of a {@link Neighborhood} one step at a time. The loop
+ * around the steps - generations, stopping and reporting - is the one of {@link TrajectorySearch}.
+ */
+interface SearchStrategy {
+
+    /**
+     * Moves the working solution of {@code neighborhood} by at most one move.
+     *
+     * @param progress the share of the run done so far, from 0 to 1
+     * @return the number of evaluated moves
+     */
+    int step(Neighborhood<?> neighborhood, SplittableRandom random, double progress);
+
+    /**
+     * @throws IllegalArgumentException for {@link Strategy#GENETIC}, which works on a population
+     */
+    static SearchStrategy of(OptConfig config) {
+        switch (config.strategy) {
+            case SIMULATED_ANNEALING:
+                return new SimulatedAnnealing(config.temperature, config.finalTemperatureRatio);
+            case TABU_SEARCH:
+                return new TabuSearch(config.tabuTenure, config.tabuCandidates);
+            default:
+                throw new IllegalArgumentException("not a single-trajectory strategy: " + config.strategy);
+        }
+    }
+
+    /**
+     * @return the number of evaluated moves per step of the strategy of {@code config}
+     */
+    static int evaluationsPerStep(OptConfig config) {
+        return config.strategy == Strategy.TABU_SEARCH ? Math.max(1, config.tabuCandidates) : 1;
+    }
+}
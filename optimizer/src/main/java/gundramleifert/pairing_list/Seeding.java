@@ -0,0 +1,188 @@
+package gundramleifert.pairing_list;
+
+import gundramleifert.pairing_list.configs.OptMatchMatrixConfig;
+import gundramleifert.pairing_list.configs.ScheduleConfig;
+import gundramleifert.pairing_list.types.Flight;
+import gundramleifert.pairing_list.types.Race;
+import gundramleifert.pairing_list.types.Schedule;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.random.RandomGenerator;
+
+/**
+ * Builds near-balanced flights as start individuals of the match matrix optimization, see
+ * {@link OptMatchMatrixConfig#constructiveShare}.
+ * <p>
+ * If the smallest prime factor of the number of races is at least the number of boats, the first flights come from a
+ * resolvable design: the slots are laid out as a grid of {@code boats} rows and {@code races} columns and flight
+ * {@code k} puts slot {@code (i, j)} into race {@code (j - i * k) mod races} (Latin square rotations). Within these
+ * flights two teams of different rows meet exactly once, two teams of the same row never. The teams are assigned to
+ * the slots randomly once per run, the no-shows of non-full races to the last slots, so they never share a race.
+ * <p>
+ * All other flights are built greedily against the flights before: team by team in random order, no-shows first,
+ * each team goes to the race with free boats whose teams it has met least often.
+ */
+class Seeding {
+
+    /**
+     * meetings counted for each pair of no-shows, so the greedy construction spreads them over the races
+     */
+    private static final int NO_SHOW_MEETINGS = 1 << 16;
+
+    private final ScheduleConfig properties;
+    private final double share;
+    private final Flight[] design;
+
+    private Seeding(ScheduleConfig properties, double share, RandomGenerator random) {
+        this.properties = properties;
+        this.share = share;
+        this.design = design(properties, random);
+    }
+
+    /**
+     * @param random lays out the teams of the design
+     * @return null if the start individuals are random
+     */
+    static Seeding of(ScheduleConfig properties, OptMatchMatrixConfig config, RandomGenerator random) {
+        return config.constructiveShare > 0 ? new Seeding(properties, config.constructiveShare, random) : null;
+    }
+
+    /**
+     * @return how many of {@code individuals} start individuals are constructed
+     */
+    int seeds(int individuals) {
+        return (int) Math.min(individuals, Math.max(1, Math.round(share * individuals)));
+    }
+
+    /**
+     * @param base  the flights before
+     * @param index the index of the start individual: the first two are plain constructions - the design, if it
+     *              covers this flight, and a greedy one - the others are perturbed by one or two random swaps
+     * @return the next flight after {@code base}
+     */
+    Flight flight(Schedule base, int index, RandomGenerator random) {
+        int f = base.size();
+        Flight flight = f < design.length && index % 2 == 0 ? design[f].copy() : greedy(base, random);
+        if (index >= 2 && flight.races.length > 1) {
+            for (int swaps = 1 + random.nextInt(2); swaps > 0; swaps--) {
+                int r1 = random.nextInt(flight.races.length);
+                int r2 = (r1 + 1 + random.nextInt(flight.races.length - 1)) % flight.races.length;
+                byte[] teams1 = flight.races[r1].teams;
+                byte[] teams2 = flight.races[r2].teams;
+                MutationUtil.swapTeams(flight, teams1[random.nextInt(teams1.length)], teams2[random.nextInt(teams2.length)]);
+            }
+        }
+        return flight;
+    }
+
+    private static Flight[] design(ScheduleConfig properties, RandomGenerator random) {
+        int races = properties.getRaces();
+        int boats = properties.numBoats;
+        if (races < 2 || smallestPrimeFactor(races) < boats) {
+            return new Flight[0];
+        }
+        // slot i * races + j is row i, column j; the no-shows take the last slots
+        byte[] slots = properties.bytes.clone();
+        byte[] teams = Arrays.copyOf(slots, properties.numTeams);
+        Util.shuffle(teams, random);
+        System.arraycopy(teams, 0, slots, 0, teams.length);
+        Flight[] design = new Flight[Math.min(races, properties.flights)];
+        for (int k = 0; k < design.length; k++) {
+            byte[][] members = new byte[races][boats];
+            for (int i = 0; i < boats; i++) {
+                for (int j = 0; j < races; j++) {
+                    members[Math.floorMod(j - i * k, races)][i] = slots[i * races + j];
+                }
+            }
+            design[k] = toFlight(members);
+        }
+        return design;
+    }
+
+    private static int smallestPrimeFactor(int n) {
+        for (int p = 2; p * p <= n; p++) {
+            if (n % p == 0) {
+                return p;
+            }
+        }
+        return n;
+    }
+
+    private Flight greedy(Schedule base, RandomGenerator random) {
+        int races = properties.getRaces();
+        int boats = properties.numBoats;
+        int[][] meetings = meetings(base);
+        byte[] teams = properties.bytes.clone();
+        Util.shuffle(teams, random);
+        // no-shows first, so each of them finds a race without another one as long as possible
+        byte[] order = new byte[teams.length];
+        int next = 0;
+        for (byte team : teams) {
+            if (team >= properties.numTeams) {
+                order[next++] = team;
+            }
+        }
+        for (byte team : teams) {
+            if (team < properties.numTeams) {
+                order[next++] = team;
+            }
+        }
+        byte[][] members = new byte[races][boats];
+        int[] filled = new int[races];
+        for (byte team : order) {
+            int best = -1;
+            int bestMeetings = Integer.MAX_VALUE;
+            int ties = 0;
+            for (int r = 0; r < races; r++) {
+                if (filled[r] == boats) {
+                    continue;
+                }
+                int sum = 0;
+                for (int k = 0; k < filled[r]; k++) {
+                    sum += meetings[team][members[r][k]];
+                }
+                if (sum < bestMeetings) {
+                    best = r;
+                    bestMeetings = sum;
+                    ties = 1;
+                } else if (sum == bestMeetings && random.nextInt(++ties) == 0) {
+                    best = r;
+                }
+            }
+            members[best][filled[best]++] = team;
+        }
+        return toFlight(members);
+    }
+
+    private int[][] meetings(Schedule base) {
+        int slots = properties.bytes.length;
+        int[][] meetings = new int[slots][slots];
+        for (int a = properties.numTeams; a < slots; a++) {
+            for (int b = properties.numTeams; b < slots; b++) {
+                meetings[a][b] = NO_SHOW_MEETINGS;
+            }
+        }
+        for (int f = 0; f < base.size(); f++) {
+            for (Race race : base.get(f).races) {
+                for (byte a : race.teams) {
+                    for (byte b : race.teams) {
+                        meetings[a][b]++;
+                    }
+                }
+            }
+        }
+        return meetings;
+    }
+
+    private static Flight toFlight(byte[][] members) {
+        Race[] races = new Race[members.length];
+        for (int r = 0; r < races.length; r++) {
+            byte[] teams = members[r].clone();
+            Arrays.sort(teams);
+            races[r] = new Race(teams);
+        }
+        Arrays.sort(races, Comparator.comparingInt(race -> race.teams[0]));
+        return new Flight(races);
+    }
+}
@@ -0,0 +1,62 @@
+package gundramleifert.pairing_list;
+
+import java.util.SplittableRandom;
+
+/**
+ * Simulated annealing: a random move is accepted if it does not raise the costs by more than {@code -T ln(u)} for a
+ * uniform {@code u}, which accepts a raise by {@code d} with probability {@code exp(-d / T)}. The threshold is
+ * drawn before the move is scored, so the bounded incremental scoring can reject early. The temperature falls
+ * geometrically from the start temperature to {@code finalTemperatureRatio} times of it over the run.
+ */
+class SimulatedAnnealing implements SearchStrategy {
+
+    static final int CALIBRATION_MOVES = 100;
+
+    private double startTemperature;
+    private final double finalTemperatureRatio;
+
+    /**
+     * @param startTemperature derived from the first {@value #CALIBRATION_MOVES} random moves if not positive
+     */
+    SimulatedAnnealing(double startTemperature, double finalTemperatureRatio) {
+        this.startTemperature = startTemperature;
+        this.finalTemperatureRatio = finalTemperatureRatio;
+    }
+
+    @Override
+    public int step(Neighborhood<?> neighborhood, SplittableRandom random, double progress) {
+        int evaluations = 0;
+        if (startTemperature <= 0) {
+            startTemperature = calibrate(neighborhood, random);
+            evaluations += CALIBRATION_MOVES;
+        }
+        double temperature = startTemperature * Math.pow(finalTemperatureRatio, progress);
+        long move = neighborhood.randomMove(random);
+        double threshold = neighborhood.costs() - temperature * Math.log(1 - random.nextDouble());
+        if (neighborhood.apply(move, threshold) < threshold) {
+            neighborhood.accept();
+        } else {
+            neighborhood.reject();
+        }
+        return evaluations + 1;
+    }
+
+    /**
+     * @return the temperature at which a move raising the costs by the mean raise of random moves is accepted with
+     * probability 1/2
+     */
+    private static double calibrate(Neighborhood<?> neighborhood, SplittableRandom random) {
+        double costs = neighborhood.costs();
+        double raises = 0;
+        int count = 0;
+        for (int i = 0; i < CALIBRATION_MOVES; i++) {
+            double delta = neighborhood.apply(neighborhood.randomMove(random), Double.POSITIVE_INFINITY) - costs;
+            neighborhood.reject();
+            if (delta > 0) {
+                raises += delta;
+                count++;
+            }
+        }
+        return count == 0 ? 1.0 : raises / count / Math.log(2);
+    }
+}
@@ -0,0 +1,41 @@
+package gundramleifert.pairing_list;
+
+/**
+ * Why a population stopped evolving before its {@code loops} were done.
+ */
+public enum StopReason {
+    /**
+     * the best individual did not change for {@code earlyStopping} generations
+     */
+    EARLY_STOPPING("early stopping"),
+    /**
+     * the best costs improved by less than {@code minImprovementPerSecond} over the convergence window
+     */
+    CONVERGED("converged"),
+    /**
+     * best and worst individual have the same costs
+     */
+    UNIFORM_POPULATION("best and worst are the same - no better solution can be expected"),
+    /**
+     * the time budget of the phase is used up
+     */
+    TIME_BUDGET("time budget used up"),
+    /**
+     * the run was cancelled by {@link Optimizer#cancel()}
+     */
+    CANCELLED("cancelled"),
+    /**
+     * the best costs reached the lower bound of {@link gundramleifert.pairing_list.cost_calculators.MatchMatrixLowerBound}
+     */
+    OPTIMAL("lower bound reached - the costs cannot be improved");
+
+    private final String description;
+
+    StopReason(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
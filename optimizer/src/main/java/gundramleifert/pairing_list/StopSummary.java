@@ -0,0 +1,46 @@
+package gundramleifert.pairing_list;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Counts the {@link StopReason}s of a run per phase, e.g. to store them with the result. Populations which ran all
+ * their loops are not counted.
+ */
+public class StopSummary implements OptimizerListener {
+
+    private final Map<Phase, Map<StopReason, Integer>> counts = new EnumMap<>(Phase.class);
+
+    @Override
+    public void stopped(Phase phase, int flight, StopReason reason) {
+        counts.computeIfAbsent(phase, p -> new EnumMap<>(StopReason.class)).merge(reason, 1, Integer::sum);
+    }
+
+    public int count(Phase phase, StopReason reason) {
+        return counts.getOrDefault(phase, Map.of()).getOrDefault(reason, 0);
+    }
+
+    public boolean isEmpty() {
+        return counts.isEmpty();
+    }
+
+    /**
+     * @return e.g. {@code MATCH_MATRIX: CONVERGED x7, TIME_BUDGET x2; BOAT_SCHEDULE: UNIFORM_POPULATION x1}
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<Phase, Map<StopReason, Integer>> phase : counts.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append("; ");
+            }
+            sb.append(phase.getKey()).append(':');
+            String separator = " ";
+            for (Map.Entry<StopReason, Integer> reason : phase.getValue().entrySet()) {
+                sb.append(separator).append(reason.getKey()).append(" x").append(reason.getValue());
+                separator = ", ";
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,128 @@
+package gundramleifert.pairing_list;
+
+import java.util.SplittableRandom;
+
+/**
+ * Tabu search on a sample of the neighborhood: each step scores {@code candidates} random moves and applies the best
+ * one, also if it raises the costs. A move stays tabu for {@code tenure} steps after it was applied, so the search
+ * does not cycle back at once - unless it leads to costs below the best ones seen so far (aspiration).
+ * <p>
+ * At most one move is applied per step, so the tabu moves are the ones in a ring of the last {@code tenure + 1}
+ * applied moves. An open-addressing count table on the moves answers the tabu check without allocating.
+ */
+class TabuSearch implements SearchStrategy {
+
+    private final int tenure;
+    private final int candidates;
+    // applied moves and their steps, oldest first
+    private final long[] ringMoves;
+    private final long[] ringSteps;
+    private int ringStart = 0;
+    private int ringSize = 0;
+    // how often each move is in the ring, a count of 0 marks a free slot
+    private final long[] keys;
+    private final int[] counts;
+    private long steps = 0;
+    private double best = Double.POSITIVE_INFINITY;
+
+    TabuSearch(int tenure, int candidates) {
+        this.tenure = Math.max(0, tenure);
+        this.candidates = Math.max(1, candidates);
+        this.ringMoves = new long[this.tenure + 1];
+        this.ringSteps = new long[this.tenure + 1];
+        // at most half full, so each probe sequence ends at a free slot
+        int capacity = Integer.highestOneBit(2 * (this.tenure + 1) - 1) << 1;
+        this.keys = new long[capacity];
+        this.counts = new int[capacity];
+    }
+
+    @Override
+    public int step(Neighborhood<?> neighborhood, SplittableRandom random, double progress) {
+        steps++;
+        expire();
+        best = Math.min(best, neighborhood.costs());
+        long bestMove = 0;
+        double bestCosts = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < candidates; i++) {
+            long move = neighborhood.randomMove(random);
+            double costs = neighborhood.apply(move, bestCosts);
+            neighborhood.reject();
+            if (costs < bestCosts && (costs < best || !isTabu(move))) {
+                bestMove = move;
+                bestCosts = costs;
+            }
+        }
+        if (bestCosts < Double.POSITIVE_INFINITY) {
+            neighborhood.apply(bestMove, Double.POSITIVE_INFINITY);
+            neighborhood.accept();
+            if (tenure > 0) {
+                int slot = (ringStart + ringSize) % ringMoves.length;
+                ringMoves[slot] = bestMove;
+                ringSteps[slot] = steps;
+                ringSize++;
+                increment(bestMove);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Drops the moves applied {@code tenure} or more steps ago from the ring.
+     */
+    private void expire() {
+        while (ringSize > 0 && ringSteps[ringStart] + tenure < steps) {
+            decrement(ringMoves[ringStart]);
+            ringStart = (ringStart + 1) % ringMoves.length;
+            ringSize--;
+        }
+    }
+
+    private int home(long move) {
+        return (int) ((move * 0x9E3779B97F4A7C15L) >>> 32) & (keys.length - 1);
+    }
+
+    private boolean isTabu(long move) {
+        for (int i = home(move); counts[i] != 0; i = (i + 1) & (keys.length - 1)) {
+            if (keys[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void increment(long move) {
+        int i = home(move);
+        while (counts[i] != 0 && keys[i] != move) {
+            i = (i + 1) & (keys.length - 1);
+        }
+        keys[i] = move;
+        counts[i]++;
+    }
+
+    private void decrement(long move) {
+        int mask = keys.length - 1;
+        int i = home(move);
+        while (keys[i] != move || counts[i] == 0) {
+            i = (i + 1) & mask;
+        }
+        if (--counts[i] > 0) {
+            return;
+        }
+        // backward shift deletion as in PopulationIndex
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (counts[j] == 0) {
+                break;
+            }
+            int k = home(keys[j]);
+            if (i <= j ? (i < k && k <= j) : (i < k || k <= j)) {
+                continue;
+            }
+            keys[i] = keys[j];
+            counts[i] = counts[j];
+            i = j;
+        }
+        counts[i] = 0;
+    }
+}
@@ -0,0 +1,120 @@
+package gundramleifert.pairing_list;
+
+import gundramleifert.pairing_list.configs.OptConfig;
+import gundramleifert.pairing_list.cost_calculators.MatchMatrixLowerBound;
+import gundramleifert.pairing_list.types.Schedule;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs a {@link SearchStrategy} on a {@link Neighborhood} with the generation loop of the GAs: a generation is
+ * {@code stepsPerGeneration} steps, and the run stops like a population after {@code loops} generations, by early
+ * stopping (the best solution did not change for {@code earlyStopping} generations), by convergence or at the
+ * deadline. The best {@code keep} distinct solutions seen are kept.
+ * <p>
+ * In progress samples and for convergence, the working solution takes the place of the worst individual and the
+ * share of steps which changed its costs the place of the diversity.
+ */
+class TrajectorySearch<S> {
+
+    private final Neighborhood<S> neighborhood;
+    private final SearchStrategy strategy;
+    private final int stepsPerGeneration;
+    private final SplittableRandom random;
+    private final Population<S> kept;
+    private final PopulationIndex<S> index = new PopulationIndex<>();
+    private long evaluations = 0;
+
+    TrajectorySearch(Neighborhood<S> neighborhood, SearchStrategy strategy, int stepsPerGeneration, int keep,
+                     SplittableRandom random) {
+        this.neighborhood = neighborhood;
+        this.strategy = strategy;
+        this.stepsPerGeneration = Math.max(1, stepsPerGeneration);
+        this.random = random;
+        this.kept = new Population<>(Math.max(1, keep));
+        keep(neighborhood.costs());
+    }
+
+    /**
+     * @param lowerBound the run stops as soon as the best costs reach it
+     * @return the reason if the run stopped before its loops were done, otherwise null
+     */
+    StopReason run(OptConfig config, Deadline deadline, double lowerBound, ProgressSampler sampler,
+                   Function<S, Schedule> toSchedule, Consumer<Schedule> saver) {
+        ConvergenceDetector convergence = ConvergenceDetector.of(config);
+        int loops = config.maxLoops();
+        long start = System.nanoTime();
+        double best = kept.bestScore();
+        int age = 0;
+        for (int i = 0; i < loops; i++) {
+            double progress = Math.max(loops == Integer.MAX_VALUE ? 0 : i / (double) loops, deadline.progress(start));
+            int changed = 0;
+            for (int j = 0; j < stepsPerGeneration; j++) {
+                double before = neighborhood.costs();
+                evaluations += strategy.step(neighborhood, random, progress);
+                double costs = neighborhood.costs();
+                if (Math.abs(costs - before) >= 1e-5) {
+                    changed++;
+                    keep(costs);
+                }
+            }
+            double changedShare = changed / (double) stepsPerGeneration;
+            if (sampler != null && sampler.due(i)) {
+                sampler.sample(i, evaluations, kept.bestScore(), neighborhood.costs(), changedShare,
+                        toSchedule.apply(kept.best()));
+            }
+            if (kept.bestScore() < best - 1e-5) {
+                best = kept.bestScore();
+                age = 0;
+            } else {
+                age++;
+            }
+            if (config.earlyStopping > 0 && age >= config.earlyStopping) {
+                return StopReason.EARLY_STOPPING;
+            }
+            if (saver != null && config.saveEveryN > 0 && (i + 1) % config.saveEveryN == 0) {
+                saver.accept(toSchedule.apply(kept.best()));
+            }
+            if (convergence != null && convergence.due(i) && convergence.converged(kept.bestScore(), changedShare)) {
+                return StopReason.CONVERGED;
+            }
+            if (MatchMatrixLowerBound.reached(kept.bestScore(), lowerBound)) {
+                return StopReason.OPTIMAL;
+            }
+            if (deadline.passed()) {
+                return deadline.reason();
+            }
+        }
+        return null;
+    }
+
+    private void keep(double costs) {
+        if (!kept.accepts(costs)) {
+            return;
+        }
+        S snapshot = neighborhood.snapshot();
+        long hash = neighborhood.hash(snapshot);
+        if (index.contains(hash, snapshot)) {
+            return;
+        }
+        index.add(hash, snapshot);
+        S dropped = kept.add(snapshot, costs);
+        if (dropped != null) {
+            index.remove(neighborhood.hash(dropped), dropped);
+        }
+    }
+
+    /**
+     * @return the best distinct solutions seen, best first
+     */
+    List<S> best() {
+        return kept.toSortedList();
+    }
+
+    double bestScore() {
+        return kept.bestScore();
+    }
+}
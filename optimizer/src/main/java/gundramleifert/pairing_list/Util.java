@@ -7,6 +7,7 @@ import gundramleifert.pairing_list.types.SameShuttle;
 import gundramleifert.pairing_list.types.Schedule;
 
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 
 public class Util {
@@ -23,7 +24,7 @@ public class Util {
     return mm;
   }
 
-  public static void shuffle(byte[] bytes, Random rnd) {
+  public static void shuffle(byte[] bytes, RandomGenerator rnd) {
     for (int i = 0; i < bytes.length; i++) {
       int j = rnd.nextInt(bytes.length);
       byte swap = bytes[i];
@@ -33,15 +34,8 @@ public class Util {
   }
 
   public static void printCount(ScheduleConfig props, Schedule schedule) {
-    int[] cnts = new int[schedule.size() + 1];
-    MatchMatrix matchMatrix = schedule.getMatchMatrix();
+    int[] cnts = schedule.getMatchMatrix().getValueHistogram();
     StringBuilder sb1 = new StringBuilder();
-    for (int i = 0; i < matchMatrix.mat.length; i++) {
-      byte[] vec = matchMatrix.mat[i];
-      for (int j = 0; j < i; j++) {
-        cnts[vec[j]]++;
-      }
-    }
     int max_value = 1;
     for (int i = 0; i < cnts.length; i++) {
       if (cnts[i] > 0) {
@@ -82,12 +76,11 @@ public class Util {
       sb1.append(String.format("%3s", props.bytes[j]));
     }
     System.out.println(sb1.toString());
-    for (int i = 0; i < mm.mat.length; i++) {
-      byte[] vec = mm.mat[i];
+    for (int i = 0; i < mm.teams; i++) {
       StringBuilder sb = new StringBuilder();
       sb.append(String.format("%3s", i));
-      for (int j = 0; j < vec.length; j++) {
-        byte t2 = vec[j];
+      for (int j = 0; j < i; j++) {
+        byte t2 = mm.get(i, j);
         //String v = String.format("%3d", t2);
         sb.append(String.format("%3d", t2));
       }
@@ -95,7 +88,7 @@ public class Util {
     }
   }
 
-  private static SameShuttle teamsOnSameShuttles(Race before, Race middle, Race after, Random random) {
+  private static SameShuttle teamsOnSameShuttles(Race before, Race middle, Race after, RandomGenerator random) {
     SameShuttle sameShuttle = new SameShuttle(middle);
     for (int i = 0; i < before.teams.length; i++) {
       byte t1 = before.teams[i];
@@ -115,7 +108,7 @@ public class Util {
     return null;
   }
 
-  public static Map<Race, SameShuttle> teamsOnSameShuttles(Schedule schedule, Random random) {
+  public static Map<Race, SameShuttle> teamsOnSameShuttles(Schedule schedule, RandomGenerator random) {
     Map<Race, SameShuttle> res = new HashMap<>();
     for (int i = 1; i < schedule.size(); i++) {
       Flight flight1 = schedule.get(i - 1);
@@ -143,7 +136,7 @@ public class Util {
   }
 
 
-  public static Schedule shuffleBoats(Schedule schedule, Random random) {
+  public static Schedule shuffleBoats(Schedule schedule, RandomGenerator random) {
     schedule = schedule.copy();
     for (int i = 0; i < schedule.size(); i++) {
       Flight flight = schedule.get(i);
@@ -154,9 +147,9 @@ public class Util {
     return schedule;
   }
 
-  public static Flight getRandomFlight(ScheduleConfig config, Random random) {
+  public static Flight getRandomFlight(ScheduleConfig config, RandomGenerator random) {
     Race[] races = new Race[config.getRaces()];
-    byte[] teams = config.bytes;
+    byte[] teams = config.bytes.clone();
     Util.shuffle(teams, random);
     int off = 0;
     for (int j = races.length; j > 0; j--) {
@@ -173,19 +166,19 @@ public class Util {
     return new Flight(races);
   }
 
-  public static void shuffleTeams(Flight flight, Random random) {
+  public static void shuffleTeams(Flight flight, RandomGenerator random) {
     for (Race race : flight.races) {
       Util.shuffle(race.teams, random);
     }
   }
 
-  public static Flight copyFlightAndShuffleTeams(Flight flight, Random random) {
+  public static Flight copyFlightAndShuffleTeams(Flight flight, RandomGenerator random) {
     flight = flight.copy();
     shuffleTeams(flight, random);
     return flight;
   }
 
-  public static Schedule getRandomSchedule(ScheduleConfig properties, Random random) {
+  public static Schedule getRandomSchedule(ScheduleConfig properties, RandomGenerator random) {
     Schedule schedule = new Schedule(properties);
     for (int i = 0; i < properties.flights; i++) {
       schedule.add(getRandomFlight(properties, random));
@@ -0,0 +1,127 @@
+package gundramleifert.pairing_list;
+
+import gundramleifert.pairing_list.types.BoatSwap;
+import gundramleifert.pairing_list.types.Flight;
+import gundramleifert.pairing_list.types.PackedSchedule;
+import gundramleifert.pairing_list.types.Race;
+import gundramleifert.pairing_list.types.RaceSwap;
+import gundramleifert.pairing_list.types.TeamSwap;
+
+import java.util.SplittableRandom;
+
+/**
+ * 64 bit Zobrist hashes of schedules, so the GAs can reject duplicate mutants by a lookup in a
+ * {@link PopulationIndex} and only compare schedules in full if their hashes collide.
+ * <p>
+ * Packed schedules of the boat GA are hashed by position: one random key per (flight, race, boat, team), xor-ed
+ * over all positions. A boat or race swap changes the hash by xor-ing the keys of the moved teams, which is the
+ * same operation before and after the swap.
+ * <p>
+ * In the match matrix GA all individuals share their base and differ only in the last flight, whose races and
+ * teams are kept sorted - a team swap reorders them. So there the flight is hashed independent of the order: the
+ * keys of the teams of a race are summed up, mixed, and summed up over all races.
+ */
+public class Zobrist {
+
+    // fixed seed: hashes must not consume the optimizer's RNG and must be reproducible
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+    // team ids are bytes
+    private static final long[] TEAM_KEYS = keys(new SplittableRandom(SEED), 128);
+
+    private final long[] keys;
+    private final int races;
+    private final int boats;
+    private final int teams;
+
+    public Zobrist(int flights, int races, int boats, int teams) {
+        this.races = races;
+        this.boats = boats;
+        this.teams = teams;
+        this.keys = keys(new SplittableRandom(SEED), flights * races * boats * teams);
+    }
+
+    private static long[] keys(SplittableRandom random, int size) {
+        long[] res = new long[size];
+        for (int i = 0; i < size; i++) {
+            res[i] = random.nextLong();
+        }
+        return res;
+    }
+
+    private long key(int position, int team) {
+        return keys[position * teams + team];
+    }
+
+    public long hash(PackedSchedule schedule) {
+        long res = 0;
+        for (int position = 0; position < schedule.teams.length; position++) {
+            res ^= key(position, schedule.teams[position]);
+        }
+        return res;
+    }
+
+    /**
+     * Updates the hash of {@code schedule} for {@code swap}, no matter whether it is applied yet or not.
+     */
+    public void swapBoats(PackedSchedule schedule, BoatSwap swap) {
+        int off = schedule.offset(swap.flight, swap.race);
+        int p1 = off + swap.boat1;
+        int p2 = off + swap.boat2;
+        byte t1 = schedule.teams[p1];
+        byte t2 = schedule.teams[p2];
+        schedule.setZobristHash(schedule.getZobristHash()
+                ^ key(p1, t1) ^ key(p2, t2) ^ key(p1, t2) ^ key(p2, t1));
+    }
+
+    /**
+     * Updates the hash of {@code schedule} for {@code swap}, no matter whether it is applied yet or not.
+     */
+    public void swapRaces(PackedSchedule schedule, RaceSwap swap) {
+        int off1 = schedule.offset(swap.flight, swap.race1);
+        int off2 = schedule.offset(swap.flight, swap.race2);
+        long hash = schedule.getZobristHash();
+        for (int b = 0; b < boats; b++) {
+            byte t1 = schedule.teams[off1 + b];
+            byte t2 = schedule.teams[off2 + b];
+            hash ^= key(off1 + b, t1) ^ key(off2 + b, t2) ^ key(off1 + b, t2) ^ key(off2 + b, t1);
+        }
+        schedule.setZobristHash(hash);
+    }
+
+    /**
+     * Order independent hash of a flight.
+     */
+    public static long hash(Flight flight) {
+        long res = 0;
+        for (Race race : flight.races) {
+            res += mix(raceKey(race.teams));
+        }
+        return res;
+    }
+
+    /**
+     * The hash of a flight after {@code swap}, given its hash before.
+     */
+    public static long hashAfter(long hash, TeamSwap swap) {
+        long race1 = raceKey(swap.race1.teams);
+        long race2 = raceKey(swap.race2.teams);
+        // race 1 got team 2 instead of team 1, race 2 the other way round
+        long delta = TEAM_KEYS[swap.team2] - TEAM_KEYS[swap.team1];
+        return hash - mix(race1 - delta) - mix(race2 + delta) + mix(race1) + mix(race2);
+    }
+
+    private static long raceKey(byte[] teams) {
+        long res = 0;
+        for (byte team : teams) {
+            res += TEAM_KEYS[team];
+        }
+        return res;
+    }
+
+    // finalizer of SplitMix64, makes the sum over races non-linear in the team keys
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
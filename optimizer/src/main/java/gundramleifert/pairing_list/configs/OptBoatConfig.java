@@ -11,6 +11,14 @@ public class OptBoatConfig extends OptConfig {
     public int swapBoats;
     @JsonProperty
     public int swapRaces;
+    /**
+     * Large-neighbourhood moves per generation of the genetic algorithm: the boats of a random flight of a random
+     * individual are re-assigned optimally against all other flights, see
+     * {@link gundramleifert.pairing_list.cost_calculators.CostCalculatorBoatSchedule#optimalBoats}. Each one costs
+     * about a full evaluation of the schedule, 0 switches them off.
+     */
+    @JsonProperty
+    public int assignments = 0;
     @JsonProperty
     public double weightStayOnBoat;
     @JsonProperty
@@ -23,6 +31,7 @@ public class OptBoatConfig extends OptConfig {
         return "OptBoatUsage{" +
                 "swapBoats=" + swapBoats +
                 ", swapRaces=" + swapRaces +
+                ", assignments=" + assignments +
                 ", weightStayOnBoat=" + weightStayOnBoat +
                 ", weightStayOnShuttle=" + weightStayOnShuttle +
                 ", weightChangeBetweenBoats=" + weightChangeBetweenBoats +
@@ -31,6 +40,14 @@ public class OptBoatConfig extends OptConfig {
                 ", earlyStopping=" + earlyStopping +
                 ", saveEveryN=" + saveEveryN +
                 ", showEveryN=" + showEveryN +
+                ", timeBudgetMillis=" + timeBudgetMillis +
+                ", convergenceWindow=" + convergenceWindow +
+                ", minImprovementPerSecond=" + minImprovementPerSecond +
+                ", strategy=" + strategy +
+                ", temperature=" + temperature +
+                ", finalTemperatureRatio=" + finalTemperatureRatio +
+                ", tabuTenure=" + tabuTenure +
+                ", tabuCandidates=" + tabuCandidates +
                 '}';
     }
 }
@@ -13,5 +13,51 @@ public abstract class OptConfig {
     public int saveEveryN = -1;
     @JsonProperty
     public int showEveryN = 1000;
+    /**
+     * wall-clock budget of the phase in milliseconds, none if not positive. If set, the best schedule found so far is
+     * returned when it is used up and {@code loops} only limits the generations if it is positive.
+     */
+    @JsonProperty
+    public long timeBudgetMillis = -1;
+    /**
+     * number of generations over which the convergence of a population is measured, off if not positive
+     */
+    @JsonProperty
+    public int convergenceWindow = -1;
+    /**
+     * a population is converged if its best costs improved by less than this per second over the last
+     * {@link #convergenceWindow} generations while its diversity did not grow, must be positive if the window is on
+     */
+    @JsonProperty
+    public double minImprovementPerSecond = 0;
+    @JsonProperty
+    public Strategy strategy = Strategy.GENETIC;
+    /**
+     * start temperature of simulated annealing, derived from the costs of random moves if not positive
+     */
+    @JsonProperty
+    public double temperature = -1;
+    /**
+     * temperature at the end of simulated annealing relative to the start temperature
+     */
+    @JsonProperty
+    public double finalTemperatureRatio = 1e-3;
+    /**
+     * number of steps a move stays forbidden in tabu search
+     */
+    @JsonProperty
+    public int tabuTenure = 10;
+    /**
+     * number of random moves evaluated per tabu search step
+     */
+    @JsonProperty
+    public int tabuCandidates = 20;
+
+    /**
+     * @return the maximal number of generations per flight
+     */
+    public int maxLoops() {
+        return timeBudgetMillis > 0 && loops <= 0 ? Integer.MAX_VALUE : loops;
+    }
 
 }
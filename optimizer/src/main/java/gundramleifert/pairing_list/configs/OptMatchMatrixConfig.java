@@ -11,6 +11,23 @@ public class OptMatchMatrixConfig extends OptConfig {
     public double factorLessParticipants=3.01;
     @JsonProperty
     public double factorTeamMissing =20.01;
+    @JsonProperty
+    public int islands = 1;
+    @JsonProperty
+    public int migrationInterval = 100;
+    @JsonProperty
+    public int migrants = 2;
+    /**
+     * threads for the concurrent branches or islands and for scoring the start populations, sequential if 1
+     */
+    @JsonProperty
+    public int threads = 1;
+    /**
+     * share of the start individuals of each flight which are built from a near-balanced construction (plus random
+     * perturbations) instead of a random partition, off if 0
+     */
+    @JsonProperty
+    public double constructiveShare = 0;
 
 //    @JsonProperty
 //    public int merges;
@@ -24,6 +41,19 @@ public class OptMatchMatrixConfig extends OptConfig {
                 ", earlyStopping=" + earlyStopping +
                 ", saveEveryN=" + saveEveryN +
                 ", showEveryN=" + showEveryN +
+                ", threads=" + threads +
+                ", timeBudgetMillis=" + timeBudgetMillis +
+                ", convergenceWindow=" + convergenceWindow +
+                ", minImprovementPerSecond=" + minImprovementPerSecond +
+                ", strategy=" + strategy +
+                ", temperature=" + temperature +
+                ", finalTemperatureRatio=" + finalTemperatureRatio +
+                ", tabuTenure=" + tabuTenure +
+                ", tabuCandidates=" + tabuCandidates +
+                ", islands=" + islands +
+                ", migrationInterval=" + migrationInterval +
+                ", migrants=" + migrants +
+                ", constructiveShare=" + constructiveShare +
                 '}';
     }
 }
@@ -43,4 +43,11 @@ public class OptimizationConfig {
     @JsonProperty
     public int seed;
 
+    /**
+     * @return a deep copy, e.g. to derive variants of a configuration
+     */
+    public OptimizationConfig copy() {
+        return Yaml.dftMapper().convertValue(this, OptimizationConfig.class);
+    }
+
 }
@@ -0,0 +1,20 @@
+package gundramleifert.pairing_list.configs;
+
+/**
+ * The search of an optimization phase.
+ */
+public enum Strategy {
+    /**
+     * truncation GA over a population of {@code individuals}, the only one using islands
+     */
+    GENETIC,
+    /**
+     * single working schedule, moves are accepted by the Metropolis criterion with a geometrically falling
+     * temperature
+     */
+    SIMULATED_ANNEALING,
+    /**
+     * single working schedule, each step takes the best of {@code tabuCandidates} random moves which is not tabu
+     */
+    TABU_SEARCH
+}
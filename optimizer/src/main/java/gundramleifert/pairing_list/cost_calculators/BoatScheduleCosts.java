@@ -0,0 +1,101 @@
+package gundramleifert.pairing_list.cost_calculators;
+
+/**
+ * Per-flight parts of the {@link CostCalculatorBoatSchedule} score of one schedule. A schedule that differs from its
+ * parent by a single boat or race swap can be scored from its parent's parts without walking all flights again.
+ */
+public class BoatScheduleCosts {
+    final CostCalculatorBoatSchedule calculator;
+    final int teams;
+    // sum of (int) |v - avg| over the cumulative boat matrix after each flight
+    final int[] matrixCosts;
+    // weighted boat changes and shuttle costs from the previous flight to this one, 0 for the first flight
+    final double[] transitionCosts;
+    final double[] averages;
+    // boat index of every team in every flight, indexed by flight * teams + team
+    final byte[] boatOfTeam;
+    double total;
+    // false if the evaluation was stopped at a bound - then total is only a lower bound and the parts are partial
+    boolean complete = true;
+
+    BoatScheduleCosts(CostCalculatorBoatSchedule calculator, int flights, int teams) {
+        this.calculator = calculator;
+        this.teams = teams;
+        this.matrixCosts = new int[flights];
+        this.transitionCosts = new double[flights];
+        this.averages = new double[flights];
+        this.boatOfTeam = new byte[flights * teams];
+    }
+
+    private BoatScheduleCosts(BoatScheduleCosts toCopy) {
+        this.calculator = toCopy.calculator;
+        this.teams = toCopy.teams;
+        this.matrixCosts = toCopy.matrixCosts.clone();
+        this.transitionCosts = toCopy.transitionCosts.clone();
+        this.averages = toCopy.averages.clone();
+        this.boatOfTeam = new byte[toCopy.boatOfTeam.length];
+        this.total = toCopy.total;
+    }
+
+    /**
+     * Copies the per-flight parts of {@code source} into {@code target} without allocating, if {@code target} has
+     * the same shape. The boat of each team is left out, it is only copied by {@link #copyBoats} once the bounded
+     * sum is known to be good enough.
+     */
+    static BoatScheduleCosts copyParts(BoatScheduleCosts source, BoatScheduleCosts target) {
+        if (target == null || target.calculator != source.calculator
+                || target.matrixCosts.length != source.matrixCosts.length || target.teams != source.teams) {
+            return new BoatScheduleCosts(source);
+        }
+        System.arraycopy(source.matrixCosts, 0, target.matrixCosts, 0, source.matrixCosts.length);
+        System.arraycopy(source.transitionCosts, 0, target.transitionCosts, 0, source.transitionCosts.length);
+        System.arraycopy(source.averages, 0, target.averages, 0, source.averages.length);
+        target.total = source.total;
+        target.complete = true;
+        return target;
+    }
+
+    static void copyBoats(BoatScheduleCosts source, BoatScheduleCosts target) {
+        System.arraycopy(source.boatOfTeam, 0, target.boatOfTeam, 0, source.boatOfTeam.length);
+    }
+
+    int boatOfTeam(int flight, int team) {
+        return boatOfTeam[flight * teams + team];
+    }
+
+    /**
+     * The cost of each flight is the sum of its own and all previous flights' parts, so earlier flights weigh more.
+     * Sets {@link #total} and returns true if it is below {@code bound}. All parts are non-negative, so after flight
+     * {@code f} the total is at least the sum so far plus the current running part for every remaining flight - once
+     * that lower bound reaches {@code bound}, the sum stops and {@link #total} holds the lower bound.
+     */
+    boolean sum(double bound) {
+        double res = 0;
+        double resPart = 0;
+        int flights = matrixCosts.length;
+        for (int flightIdx = 0; flightIdx < flights; flightIdx++) {
+            resPart += matrixCosts[flightIdx] + transitionCosts[flightIdx];
+            res += resPart;
+            double lowerBound = res + resPart * (flights - 1 - flightIdx);
+            if (lowerBound >= bound) {
+                total = lowerBound;
+                complete = false;
+                return false;
+            }
+        }
+        total = res;
+        return true;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    /**
+     * False if the evaluation was stopped at a bound, then {@link #getTotal()} is only a lower bound and the costs
+     * must not be stored on a schedule.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+}
@@ -4,7 +4,7 @@ import gundramleifert.pairing_list.configs.OptBoatConfig;
 import gundramleifert.pairing_list.types.*;
 import gundramleifert.pairing_list.configs.ScheduleConfig;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 import static gundramleifert.pairing_list.FlightWeight.getFlightWeight;
 
@@ -18,20 +18,28 @@ public class CostCalculatorBoatSchedule implements ICostCalculator {
         this.optBoatUsage = optBoatUsage;
     }
 
-    private static int addteamsOnWaterAndReturnTeamsToTransfer(ArrayList<Byte> teamsAtWater, Race race1, Race race2) {
-        int teamsToTranfer = Math.max(race1.teams.length, race2.teams.length);
-        for (int i = 0; i < race1.teams.length; i++) {
-            byte team1 = race1.teams[i];
-            for (int j = 0; j < race2.teams.length; j++) {
-                byte team2 = race2.teams[j];
-                if (team1 == team2) {
-                    teamsAtWater.add(team1);
-                    teamsToTranfer--;
-                    break;
-                }
-            }
+    @Override
+    public int getCacheSlot() {
+        return SLOT_BOAT_SCHEDULE;
+    }
+
+    private static long[] teamSet(Race race) {
+        long[] res = new long[TeamSet.MAX_WORDS];
+        TeamSet.of(race.teams, 0, race.teams.length, res, 0, TeamSet.MAX_WORDS);
+        return res;
+    }
+
+    /**
+     * Stores the teams of {@code race1} which are also in {@code race2} - they stay on the water - in
+     * {@code teamsAtWater} and returns the number of teams which have to be transferred.
+     */
+    private static int addteamsOnWaterAndReturnTeamsToTransfer(long[] teamsAtWater, Race race1, Race race2) {
+        long[] set1 = teamSet(race1);
+        long[] set2 = teamSet(race2);
+        for (int w = 0; w < TeamSet.MAX_WORDS; w++) {
+            teamsAtWater[w] = set1[w] & set2[w];
         }
-        return teamsToTranfer;
+        return Math.max(race1.teams.length, race2.teams.length) - TeamSet.size(teamsAtWater, 0, TeamSet.MAX_WORDS);
     }
 
     public static int[]  getInterFlightStat(Schedule schedule, int numTeams) {
@@ -44,7 +52,7 @@ public class CostCalculatorBoatSchedule implements ICostCalculator {
             shuttleAtHabour += (shuttlesEachRace - shuttlesPerTeams(interFlightStat.shuttleBetweenFlight));
             shuttleAtSea += (shuttlesEachRace - shuttlesPerTeams(interFlightStat.shuttleFirstRace));
             shuttleAtSea += (shuttlesEachRace - shuttlesPerTeams(interFlightStat.shuttleLastRace));
-            boatChanges += interFlightStat.teamsChangeBoats.size();
+            boatChanges += interFlightStat.numTeamsChangeBoats();
         }
         return new int[]{shuttleAtHabour, shuttleAtSea, boatChanges};
     }
@@ -55,20 +63,17 @@ public class CostCalculatorBoatSchedule implements ICostCalculator {
         Race race2 = after.races[0];
         int teamsToTranfer = Math.max(race1.numParticipants(numTeams),
                 race2.numParticipants(numTeams));
-        for (int i = 0; i < race1.teams.length; i++) {
-            byte team1 = race1.teams[i];
-            for (int j = 0; j < race2.teams.length; j++) {
-                byte team2 = race2.teams[j];
-                if (team1 == team2) {
-                    if (i == j) {
-                        res.teamsStayOnBoat.add(team1);
-                        teamsToTranfer--;
-                    } else {
-                        res.teamsChangeBoats.add(team1);
-                    }
-                }
+        for (int i = 0; i < Math.min(race1.teams.length, race2.teams.length); i++) {
+            if (race1.teams[i] == race2.teams[i]) {
+                TeamSet.add(res.teamsStayOnBoat, 0, race1.teams[i]);
+                teamsToTranfer--;
             }
         }
+        long[] set1 = teamSet(race1);
+        long[] set2 = teamSet(race2);
+        for (int w = 0; w < TeamSet.MAX_WORDS; w++) {
+            res.teamsChangeBoats[w] = set1[w] & set2[w] & ~res.teamsStayOnBoat[w];
+        }
         res.shuttleBetweenFlight = teamsToTranfer;
         if (before.races.length > 1) {
             res.shuttleLastRace = addteamsOnWaterAndReturnTeamsToTransfer(
@@ -93,33 +98,310 @@ public class CostCalculatorBoatSchedule implements ICostCalculator {
     }
 
     public double score(Schedule schedule) {
+        return evaluate(PackedSchedule.of(schedule), Double.POSITIVE_INFINITY).total;
+    }
+
+    @Override
+    public double score(Schedule schedule, double bound) {
+        return evaluate(PackedSchedule.of(schedule), bound).total;
+    }
+
+    public double score(PackedSchedule schedule) {
+        BoatScheduleCosts costs = schedule.getBoatScheduleCosts();
+        if (costs == null || costs.calculator != this) {
+            costs = evaluate(schedule, Double.POSITIVE_INFINITY);
+            schedule.setBoatScheduleCosts(costs);
+        }
+        return costs.total;
+    }
+
+    /**
+     * Evaluates all flights in order and stops once the running total shows that the score cannot get below
+     * {@code bound} (see {@link BoatScheduleCosts#sum(double)}).
+     */
+    private BoatScheduleCosts evaluate(PackedSchedule schedule, double bound) {
+        int boats = properties.boats.length;
+        int teams = properties.teams.length;
+        BoatScheduleCosts costs = new BoatScheduleCosts(this, schedule.flights, teams);
+        // the cumulative boat matrix, indexed by boat * teams + team
+        int[] matrix = new int[boats * teams];
+        int sum = 0;
         double res = 0;
-        BoatMatrix matchMatrix = new BoatMatrix(properties);
         double resPart = 0;
-        for (int flightIdx = 0; flightIdx < schedule.size(); flightIdx++) {
-            Flight flight = schedule.get(flightIdx);
-            matchMatrix.add(flight);
-            double avg = matchMatrix.average();
-            for (byte[] vec : matchMatrix.mat) {
-                for (byte v : vec) {
-                    resPart += (int) Math.abs(v - avg);
-                    //resPart +=(v - avg)*(v - avg);
+        for (int flightIdx = 0; flightIdx < schedule.flights; flightIdx++) {
+            int off = schedule.offset(flightIdx);
+            for (int r = 0; r < schedule.races; r++) {
+                for (int b = 0; b < schedule.boats; b++) {
+                    byte team = schedule.teams[off++];
+                    matrix[b * teams + team]++;
+                    costs.boatOfTeam[flightIdx * teams + team] = (byte) b;
                 }
             }
+            sum += schedule.races * schedule.boats;
+            double avg = ((double) sum) / boats / teams;
+            int matrixCost = 0;
+            for (int v : matrix) {
+                matrixCost += cellCost(v, avg);
+            }
+            costs.matrixCosts[flightIdx] = matrixCost;
+            costs.averages[flightIdx] = avg;
             if (flightIdx > 0) {
-                InterFlightStat interFlightStat = getInterFlightStat(
-                        schedule.get(flightIdx - 1),
-                        schedule.get(flightIdx),properties.numTeams);
-                resPart += interFlightStat.teamsChangeBoats.size() * optBoatUsage.weightChangeBetweenBoats;
-                resPart += (shuttlesPerTeams(interFlightStat.shuttleFirstRace) + 0.01 * interFlightStat.shuttleFirstRace) * optBoatUsage.weightStayOnShuttle;
-                resPart += (shuttlesPerTeams(interFlightStat.shuttleLastRace) + 0.01 * interFlightStat.shuttleFirstRace) * optBoatUsage.weightStayOnShuttle;
-                resPart += (shuttlesPerTeams(interFlightStat.shuttleBetweenFlight) + 0.01 * interFlightStat.shuttleBetweenFlight) * optBoatUsage.weightStayOnBoat;
+                costs.transitionCosts[flightIdx] = transitionCost(schedule, flightIdx);
             }
-
+            resPart += costs.matrixCosts[flightIdx] + costs.transitionCosts[flightIdx];
             res += resPart;
+            double lowerBound = res + resPart * (schedule.flights - 1 - flightIdx);
+            if (lowerBound >= bound) {
+                costs.total = lowerBound;
+                costs.complete = false;
+                return costs;
+            }
+        }
+        costs.total = res;
+        return costs;
+    }
+
+    private static int cellCost(int v, double avg) {
+        return (int) Math.abs(v - avg);
+        //return (v - avg)*(v - avg);
+    }
+
+    /**
+     * Same costs as {@link #getInterFlightStat(Flight, Flight, int)} gives for the flights {@code flightIdx - 1} and
+     * {@code flightIdx}, counted directly on the packed teams.
+     */
+    private double transitionCost(PackedSchedule schedule, int flightIdx) {
+        byte[] teams = schedule.teams;
+        long[] sets = schedule.raceTeams;
+        int words = schedule.words;
+        int boats = schedule.boats;
+        int last = schedule.offset(flightIdx - 1, schedule.races - 1);
+        int first = schedule.offset(flightIdx, 0);
+        int lastSet = schedule.setOffset(flightIdx - 1, schedule.races - 1);
+        int firstSet = schedule.setOffset(flightIdx, 0);
+        int teamsToTransfer = Math.max(TeamSet.sizeBelow(sets, lastSet, words, properties.numTeams),
+                TeamSet.sizeBelow(sets, firstSet, words, properties.numTeams));
+        int teamsStayOnBoat = 0;
+        for (int i = 0; i < boats; i++) {
+            if (teams[last + i] == teams[first + i]) {
+                teamsStayOnBoat++;
+            }
+        }
+        teamsToTransfer -= teamsStayOnBoat;
+        int teamsChangeBoats = TeamSet.intersectionSize(sets, lastSet, sets, firstSet, words) - teamsStayOnBoat;
+        int shuttleLastRace = 0;
+        int shuttleFirstRace = 0;
+        if (schedule.races > 1) {
+            shuttleLastRace = boats - TeamSet.intersectionSize(sets, schedule.setOffset(flightIdx - 1, schedule.races - 2), sets, firstSet, words);
+            shuttleFirstRace = boats - TeamSet.intersectionSize(sets, lastSet, sets, schedule.setOffset(flightIdx, 1), words);
         }
+        double res = teamsChangeBoats * optBoatUsage.weightChangeBetweenBoats;
+        res += (shuttlesPerTeams(shuttleFirstRace) + 0.01 * shuttleFirstRace) * optBoatUsage.weightStayOnShuttle;
+        res += (shuttlesPerTeams(shuttleLastRace) + 0.01 * shuttleFirstRace) * optBoatUsage.weightStayOnShuttle;
+        res += (shuttlesPerTeams(teamsToTransfer) + 0.01 * teamsToTransfer) * optBoatUsage.weightStayOnBoat;
         return res;
     }
-}
 
+    private static void updateTransitions(PackedSchedule schedule, BoatScheduleCosts costs, int flightIdx) {
+        CostCalculatorBoatSchedule calculator = costs.calculator;
+        if (flightIdx > 0) {
+            costs.transitionCosts[flightIdx] = calculator.transitionCost(schedule, flightIdx);
+        }
+        if (flightIdx + 1 < schedule.flights) {
+            costs.transitionCosts[flightIdx + 1] = calculator.transitionCost(schedule, flightIdx + 1);
+        }
+    }
+
+    private BoatScheduleCosts requireCosts(PackedSchedule schedule) {
+        BoatScheduleCosts costs = schedule.getBoatScheduleCosts();
+        if (costs == null || costs.calculator != this || !costs.complete) {
+            throw new IllegalStateException("schedule has to be scored before a swap is applied in place");
+        }
+        return costs;
+    }
+
+    /**
+     * Scores {@code schedule} after {@code swap} was applied to it in place. Only the four boat matrix cells of the
+     * two swapped teams change (in all flights from the swapped one on) and only the transitions into and out of the
+     * swapped flight have to be recalculated. The costs stored on the schedule still describe the state before the
+     * swap and stay untouched, the new costs are written to {@code target} (allocated if null or of another shape).
+     */
+    public BoatScheduleCosts scoreBoatSwap(PackedSchedule schedule, BoatSwap swap, BoatScheduleCosts target) {
+        return scoreBoatSwap(schedule, swap, target, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Like {@link #scoreBoatSwap(PackedSchedule, BoatSwap, BoatScheduleCosts)}, but if the new costs are not below
+     * {@code bound}, the result is {@link BoatScheduleCosts#isComplete() incomplete} and only good for rejecting the
+     * swap - the boat of each team is then not even copied.
+     */
+    public BoatScheduleCosts scoreBoatSwap(PackedSchedule schedule, BoatSwap swap, BoatScheduleCosts target,
+                                           double bound) {
+        BoatScheduleCosts parentCosts = requireCosts(schedule);
+        BoatScheduleCosts costs = BoatScheduleCosts.copyParts(parentCosts, target);
+        int flightIdx = swap.flight;
+        int b1 = swap.boat1;
+        int b2 = swap.boat2;
+        // team x moved from boat 1 to boat 2, team y the other way round
+        int x = schedule.get(flightIdx, swap.race, b2);
+        int y = schedule.get(flightIdx, swap.race, b1);
+        int c1x = 0, c1y = 0, c2x = 0, c2y = 0;
+        for (int f = 0; f < costs.matrixCosts.length; f++) {
+            int bx = parentCosts.boatOfTeam(f, x);
+            int by = parentCosts.boatOfTeam(f, y);
+            if (bx == b1) c1x++;
+            if (bx == b2) c2x++;
+            if (by == b1) c1y++;
+            if (by == b2) c2y++;
+            if (f >= flightIdx) {
+                double avg = costs.averages[f];
+                costs.matrixCosts[f] += cellCost(c1x - 1, avg) + cellCost(c1y + 1, avg)
+                        + cellCost(c2x + 1, avg) + cellCost(c2y - 1, avg)
+                        - cellCost(c1x, avg) - cellCost(c1y, avg)
+                        - cellCost(c2x, avg) - cellCost(c2y, avg);
+            }
+        }
+        updateTransitions(schedule, costs, flightIdx);
+        if (costs.sum(bound)) {
+            BoatScheduleCosts.copyBoats(parentCosts, costs);
+            costs.boatOfTeam[flightIdx * costs.teams + x] = (byte) b2;
+            costs.boatOfTeam[flightIdx * costs.teams + y] = (byte) b1;
+        }
+        return costs;
+    }
+
+    /**
+     * Like {@link #scoreBoatSwap} for a race swap: the boat matrix does not change, only the transitions into and
+     * out of the swapped flight have to be recalculated.
+     */
+    public BoatScheduleCosts scoreRaceSwap(PackedSchedule schedule, RaceSwap swap, BoatScheduleCosts target) {
+        return scoreRaceSwap(schedule, swap, target, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Like {@link #scoreBoatSwap(PackedSchedule, BoatSwap, BoatScheduleCosts, double)} for a race swap.
+     */
+    public BoatScheduleCosts scoreRaceSwap(PackedSchedule schedule, RaceSwap swap, BoatScheduleCosts target,
+                                           double bound) {
+        BoatScheduleCosts parentCosts = requireCosts(schedule);
+        BoatScheduleCosts costs = BoatScheduleCosts.copyParts(parentCosts, target);
+        updateTransitions(schedule, costs, swap.flight);
+        if (costs.sum(bound)) {
+            BoatScheduleCosts.copyBoats(parentCosts, costs);
+        }
+        return costs;
+    }
+
+    /**
+     * Re-solves the boats of all races of flight {@code flightIdx} at once, the races and all other flights stay as
+     * they are. Every team sails exactly once per flight, so the boat matrix costs split into one cost per team and
+     * boat - the change of its cells in this and all later flights - and each race is an assignment of its teams to
+     * the boats, solved with the Hungarian algorithm. The transitions into and out of the flight only depend on which
+     * teams of its first and last race stay on their boat; as the shuttles are rounded to pairs of teams, a team
+     * staying on its boat is counted with half a shuttle, so the result is optimal up to this rounding. The exact
+     * costs of the flight are compared at the end: if the rounding made the result worse than the current boats, the
+     * current boats are returned, so the costs never rise.
+     *
+     * @param schedule has to be scored, see {@link #score(PackedSchedule)}
+     * @return the teams of the flight in race and boat order, laid out as in {@link PackedSchedule#teams}
+     */
+    public byte[] optimalBoats(PackedSchedule schedule, int flightIdx) {
+        BoatScheduleCosts costs = requireCosts(schedule);
+        int flights = schedule.flights;
+        int races = schedule.races;
+        int boats = schedule.boats;
+        int teams = costs.teams;
+        double stay = optBoatUsage.weightChangeBetweenBoats + 0.51 * optBoatUsage.weightStayOnBoat;
+        int[] counts = new int[boats];
+        double[][] matrixCosts = new double[teams][boats];
+        for (int team = 0; team < teams; team++) {
+            Arrays.fill(counts, 0);
+            double[] teamCosts = matrixCosts[team];
+            for (int f = 0; f < flights; f++) {
+                if (f != flightIdx) {
+                    counts[costs.boatOfTeam(f, team)]++;
+                }
+                if (f >= flightIdx) {
+                    double avg = costs.averages[f];
+                    for (int b = 0; b < boats; b++) {
+                        teamCosts[b] += (flights - f) * (cellCost(counts[b] + 1, avg) - cellCost(counts[b], avg));
+                    }
+                }
+            }
+        }
+        byte[] res = new byte[races * boats];
+        double[][] raceCosts = new double[boats][boats];
+        for (int r = 0; r < races; r++) {
+            int off = schedule.offset(flightIdx, r);
+            for (int i = 0; i < boats; i++) {
+                int team = schedule.teams[off + i];
+                System.arraycopy(matrixCosts[team], 0, raceCosts[i], 0, boats);
+                for (int b = 0; b < boats; b++) {
+                    if (r == 0 && flightIdx > 0
+                            && schedule.get(flightIdx - 1, races - 1, b) == team) {
+                        raceCosts[i][b] -= (flights - flightIdx) * stay;
+                    }
+                    if (r == races - 1 && flightIdx + 1 < flights
+                            && schedule.get(flightIdx + 1, 0, b) == team) {
+                        raceCosts[i][b] -= (flights - flightIdx - 1) * stay;
+                    }
+                }
+            }
+            int[] boatOf = Hungarian.solve(raceCosts);
+            for (int i = 0; i < boats; i++) {
+                res[r * boats + boatOf[i]] = schedule.teams[off + i];
+            }
+        }
+        byte[] current = Arrays.copyOfRange(schedule.teams, schedule.offset(flightIdx), schedule.offset(flightIdx + 1));
+        return flightCosts(schedule, flightIdx, res, matrixCosts) <= flightCosts(schedule, flightIdx, current, matrixCosts)
+                ? res
+                : current;
+    }
+
+    /**
+     * The exact costs which depend on the boats of flight {@code flightIdx}, if its teams sail as in
+     * {@code flightTeams}, up to a constant: the boat matrix cells of its teams and the teams staying on their boat
+     * into and out of it.
+     */
+    private double flightCosts(PackedSchedule schedule, int flightIdx, byte[] flightTeams, double[][] matrixCosts) {
+        int flights = schedule.flights;
+        int boats = schedule.boats;
+        double res = 0;
+        for (int i = 0; i < flightTeams.length; i++) {
+            res += matrixCosts[flightTeams[i]][i % boats];
+        }
+        if (flightIdx > 0) {
+            int stays = 0;
+            for (int b = 0; b < boats; b++) {
+                if (schedule.get(flightIdx - 1, schedule.races - 1, b) == flightTeams[b]) {
+                    stays++;
+                }
+            }
+            res += (flights - flightIdx) * stayCost(schedule, flightIdx, stays);
+        }
+        if (flightIdx + 1 < flights) {
+            int last = flightTeams.length - boats;
+            int stays = 0;
+            for (int b = 0; b < boats; b++) {
+                if (flightTeams[last + b] == schedule.get(flightIdx + 1, 0, b)) {
+                    stays++;
+                }
+            }
+            res += (flights - flightIdx - 1) * stayCost(schedule, flightIdx + 1, stays);
+        }
+        return res;
+    }
 
+    /**
+     * The part of {@link #transitionCost} into flight {@code flightIdx} which depends on how many teams stay on their
+     * boat - the team sets of the races do not change with the boats.
+     */
+    private double stayCost(PackedSchedule schedule, int flightIdx, int stays) {
+        long[] sets = schedule.raceTeams;
+        int teamsToTransfer = Math.max(
+                TeamSet.sizeBelow(sets, schedule.setOffset(flightIdx - 1, schedule.races - 1), schedule.words, properties.numTeams),
+                TeamSet.sizeBelow(sets, schedule.setOffset(flightIdx, 0), schedule.words, properties.numTeams)) - stays;
+        return -stays * optBoatUsage.weightChangeBetweenBoats
+                + (shuttlesPerTeams(teamsToTransfer) + 0.01 * teamsToTransfer) * optBoatUsage.weightStayOnBoat;
+    }
+}
@@ -1,11 +1,13 @@
 package gundramleifert.pairing_list.cost_calculators;
 
 import gundramleifert.pairing_list.MatchMatrix;
+import gundramleifert.pairing_list.MatchMatrixDelta;
 import gundramleifert.pairing_list.configs.OptMatchMatrixConfig;
 import gundramleifert.pairing_list.configs.ScheduleConfig;
 import gundramleifert.pairing_list.types.Flight;
 import gundramleifert.pairing_list.types.Race;
 import gundramleifert.pairing_list.types.Schedule;
+import gundramleifert.pairing_list.types.TeamSwap;
 
 public class CostCalculatorMatchMatrix implements ICostCalculator {
 
@@ -21,32 +23,51 @@ public class CostCalculatorMatchMatrix implements ICostCalculator {
     this.optConfig = optConfig;
   }
 
-  public double score(MatchMatrix matchMatrix) {
+  @Override
+  public int getCacheSlot() {
+    return SLOT_MATCH_MATRIX;
+  }
+
+  /**
+   * The cubic deviation from the average only depends on how often each value occurs in the matrix, so it is
+   * calculated from the value histogram instead of from all T^2 cells.
+   */
+  private static double score(int[] histogram, long cellSum, int cellCount) {
     double res = 0;
-    double avg = matchMatrix.avg();
-    for (int i = 0; i < matchMatrix.mat.length; i++) {
-      byte[] vec = matchMatrix.mat[i];
-      for (int j = 0; j < i; j++) {
-        double diff = vec[j] - avg;
-        res += Math.abs(diff * diff * diff);
+    double avg = ((double) cellSum) / cellCount;
+    for (int v = 0; v < histogram.length; v++) {
+      if (histogram[v] > 0) {
+        double diff = v - avg;
+        res += histogram[v] * Math.abs(diff * diff * diff);
       }
     }
-    double v = matchMatrix.avgLowerParticipants();
+    return res;
+  }
+
+  private double scoreLowerParticipants(byte[] lowerParticipants) {
+    double sum = 0;
+    for (int i = 0; i < lowerParticipants.length; i++) {
+      sum += lowerParticipants[i];
+    }
+    double v = sum / lowerParticipants.length;
     if (v > 0.0) {
       double res2 = 0;
-      for (int i = 0; i < matchMatrix.lowerParticipants.length; i++) {
-        double diff = v - matchMatrix.lowerParticipants[i];
+      for (int i = 0; i < lowerParticipants.length; i++) {
+        double diff = v - lowerParticipants[i];
         res2 += Math.abs(diff * diff * diff);
       }
-      res += res2 * optConfig.factorLessParticipants;
+      return res2 * optConfig.factorLessParticipants;
     }
-    return res;
+    return 0.0;
   }
 
-  public double score(Schedule schedule) {
-    double score = score(schedule.getMatchMatrix());
+  public double score(MatchMatrix matchMatrix) {
+    return score(matchMatrix.getValueHistogram(), matchMatrix.getCellSum(), matchMatrix.getCellCount())
+            + scoreLowerParticipants(matchMatrix.lowerParticipants);
+  }
+
+  private double scoreTeamMissing(Flight flight) {
     if (!this.properties.isFull && optConfig.factorTeamMissing > 0.0) {
-      Flight flight = schedule.lastFlight();
       int min = 100;
       int max = 0;
       for (Race race : flight.races) {
@@ -59,8 +80,44 @@ public class CostCalculatorMatchMatrix implements ICostCalculator {
         min = Math.min(min, cnt);
         max = Math.max(max, cnt);
       }
-      score += (max - min) * optConfig.factorTeamMissing;
+      return (max - min) * optConfig.factorTeamMissing;
+    }
+    return 0.0;
+  }
+
+  public double score(Schedule schedule) {
+    MatchMatrixDelta delta = schedule.getMatchMatrixDelta();
+    if (delta != null) {
+      if (Double.isNaN(delta.getScore())) {
+        delta.setScore(score(delta) + scoreTeamMissing(schedule.lastFlight()));
+      }
+      return delta.getScore();
+    }
+    return score(schedule.getMatchMatrix()) + scoreTeamMissing(schedule.lastFlight());
+  }
+
+  private double score(MatchMatrixDelta delta) {
+    return score(delta.getValueHistogram(), delta.getCellSum(), delta.getCellCount())
+            + scoreLowerParticipants(delta.getLowerParticipants());
+  }
+
+  /**
+   * Scores a schedule which differs from its parent only by a swap of two teams in the last flight, in O(boats)
+   * instead of O(teams^2).
+   *
+   * @param parentScore the score of the parent
+   * @param parent      the match matrix of the parent (including the last flight before the swap)
+   * @param swap        the swap applied to the last flight
+   * @param flight      the last flight after the swap
+   * @return the delta holding the new score and the lazily materialized match matrix of the child
+   */
+  public MatchMatrixDelta scoreSwap(double parentScore, MatchMatrix parent, TeamSwap swap, Flight flight) {
+    MatchMatrixDelta delta = new MatchMatrixDelta(parent, swap);
+    if (delta.isNeutral()) {
+      delta.setScore(parentScore);
+    } else {
+      delta.setScore(score(delta) + scoreTeamMissing(flight));
     }
-    return score;
+    return delta;
   }
 }
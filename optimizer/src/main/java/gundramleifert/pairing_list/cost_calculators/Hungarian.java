@@ -0,0 +1,74 @@
+package gundramleifert.pairing_list.cost_calculators;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost perfect assignment of a square cost matrix with the Hungarian algorithm (shortest augmenting paths
+ * with potentials), in {@code O(n^3)}.
+ */
+final class Hungarian {
+
+    private Hungarian() {
+    }
+
+    /**
+     * @param costs {@code costs[row][column]}, square and finite
+     * @return the column assigned to each row, so that the sum of the costs is minimal
+     */
+    static int[] solve(double[][] costs) {
+        int n = costs.length;
+        // 1-based, row and column 0 are the virtual start of each augmenting path
+        double[] rowPotential = new double[n + 1];
+        double[] columnPotential = new double[n + 1];
+        int[] rowOfColumn = new int[n + 1];
+        int[] previous = new int[n + 1];
+        double[] slack = new double[n + 1];
+        boolean[] visited = new boolean[n + 1];
+        for (int row = 1; row <= n; row++) {
+            rowOfColumn[0] = row;
+            int column = 0;
+            Arrays.fill(slack, Double.POSITIVE_INFINITY);
+            Arrays.fill(visited, false);
+            do {
+                visited[column] = true;
+                int r = rowOfColumn[column];
+                double delta = Double.POSITIVE_INFINITY;
+                int next = 0;
+                for (int c = 1; c <= n; c++) {
+                    if (visited[c]) {
+                        continue;
+                    }
+                    double reduced = costs[r - 1][c - 1] - rowPotential[r] - columnPotential[c];
+                    if (reduced < slack[c]) {
+                        slack[c] = reduced;
+                        previous[c] = column;
+                    }
+                    if (slack[c] < delta) {
+                        delta = slack[c];
+                        next = c;
+                    }
+                }
+                for (int c = 0; c <= n; c++) {
+                    if (visited[c]) {
+                        rowPotential[rowOfColumn[c]] += delta;
+                        columnPotential[c] -= delta;
+                    } else {
+                        slack[c] -= delta;
+                    }
+                }
+                column = next;
+            } while (rowOfColumn[column] != 0);
+            // flip the augmenting path
+            do {
+                int before = previous[column];
+                rowOfColumn[column] = rowOfColumn[before];
+                column = before;
+            } while (column != 0);
+        }
+        int[] res = new int[n];
+        for (int c = 1; c <= n; c++) {
+            res[rowOfColumn[c] - 1] = c - 1;
+        }
+        return res;
+    }
+}
@@ -3,13 +3,54 @@ package gundramleifert.pairing_list.cost_calculators;
 import gundramleifert.pairing_list.types.Schedule;
 
 public interface ICostCalculator {
+
+    /**
+     * Slots of the score cache of a {@link Schedule}, one per calculator type. A schedule is only ever scored by
+     * calculators of one configuration per type, so the type is enough to identify a cached score.
+     */
+    int SLOT_MATCH_MATRIX = 0;
+    int SLOT_BOAT_SCHEDULE = 1;
+    int SLOTS = 2;
+
     double score(Schedule schedule);
 
+    /**
+     * Like {@link #score(Schedule)}, but the evaluation may stop as soon as it is clear that the score is not below
+     * {@code bound}. The result is exact if it is below {@code bound}, otherwise it is some value {@code >= bound}
+     * and the candidate is rejected. Calculators without cheap partial sums simply score completely.
+     */
+    default double score(Schedule schedule, double bound) {
+        return score(schedule);
+    }
+
+    int getCacheSlot();
+
     default double scoreWithCache(Schedule schedule) {
-        if (!schedule.scoreMap.containsKey(this)) {
-            schedule.scoreMap.put(this, score(schedule));
+        int slot = getCacheSlot();
+        if (!schedule.hasScore(slot)) {
+            schedule.setScore(slot, score(schedule));
         }
-        return schedule.scoreMap.get(this);
+        return schedule.getScore(slot);
+    }
+
+    /**
+     * Like {@link #scoreWithCache(Schedule)} with a {@link #score(Schedule, double) bound}. Only exact scores are
+     * cached.
+     */
+    default double scoreWithCache(Schedule schedule, double bound) {
+        int slot = getCacheSlot();
+        if (schedule.hasScore(slot)) {
+            return schedule.getScore(slot);
+        }
+        double score = score(schedule, bound);
+        if (score < bound) {
+            schedule.setScore(slot, score);
+        }
+        return score;
+    }
+
+    default void cacheScore(Schedule schedule, double score) {
+        schedule.setScore(getCacheSlot(), score);
     }
 
 }
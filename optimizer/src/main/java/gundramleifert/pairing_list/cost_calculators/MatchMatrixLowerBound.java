@@ -0,0 +1,181 @@
+package gundramleifert.pairing_list.cost_calculators;
+
+import gundramleifert.pairing_list.MatchMatrix;
+import gundramleifert.pairing_list.configs.OptMatchMatrixConfig;
+import gundramleifert.pairing_list.configs.ScheduleConfig;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lower bounds of the costs of {@link CostCalculatorMatchMatrix}.
+ * <p>
+ * The costs are the cubic deviations of the pair counts from their average, plus those of the numbers of races with
+ * fewer participants per team, plus the spread of the no-shows over the races of the last flight. How the no-shows of
+ * a flight are distributed over its races - its profile - fixes how many pairs meet and how many teams sail with
+ * fewer participants in it, so for a given profile of each flight the sums of both counts are fixed. Integer counts
+ * with a fixed sum deviate least if they are spread as evenly as possible: some at the floor of the average, the
+ * others one above. For full races there is a single profile and this is the bound of the fixed total number of
+ * meetings.
+ * <p>
+ * {@link #get(int)} bounds any schedule with the given number of flights, {@link #next(MatchMatrix)} the best
+ * extension of a given schedule by one flight: a flight adds at most one to each count, and as the costs are convex,
+ * adding it to the smallest counts is best.
+ */
+public class MatchMatrixLowerBound {
+
+    private final ScheduleConfig properties;
+    private final OptMatchMatrixConfig optConfig;
+    private final int cellCount;
+    private final List<int[]> profiles = new ArrayList<>();
+    private final double[] bounds;
+
+    public MatchMatrixLowerBound(ScheduleConfig properties, OptMatchMatrixConfig optConfig) {
+        this.properties = properties;
+        this.optConfig = optConfig;
+        this.cellCount = properties.numTeams * (properties.numTeams - 1) / 2;
+        Map<Long, Integer> spreads = new LinkedHashMap<>();
+        int noShows = properties.getRaces() * properties.numBoats - properties.numTeams;
+        addProfiles(new int[properties.getRaces()], 0, noShows, noShows, spreads);
+        for (Map.Entry<Long, Integer> entry : spreads.entrySet()) {
+            profiles.add(new int[]{(int) (entry.getKey() >>> 32), (int) (long) entry.getKey(), entry.getValue()});
+        }
+        this.bounds = new double[properties.flights + 1];
+        Set<Long> reachable = Set.of(0L);
+        for (int flights = 1; flights <= properties.flights; flights++) {
+            double bound = Double.POSITIVE_INFINITY;
+            Set<Long> next = new HashSet<>();
+            for (long sums : reachable) {
+                long meetings = sums >>> 32;
+                long lowerParticipants = (int) sums;
+                for (int[] profile : profiles) {
+                    bound = Math.min(bound, evenDeviation(meetings + profile[0], cellCount)
+                            + lowerParticipantsBound(lowerParticipants + profile[1]) + teamMissing(profile[2]));
+                    next.add((meetings + profile[0]) << 32 | (lowerParticipants + profile[1]));
+                }
+            }
+            bounds[flights] = bound;
+            reachable = next;
+        }
+    }
+
+    /**
+     * Enumerates the distributions of the no-shows over the races, largest first, and keeps the smallest spread per
+     * pair of sums.
+     */
+    private void addProfiles(int[] noShows, int race, int left, int max, Map<Long, Integer> spreads) {
+        if (race == noShows.length) {
+            if (left > 0) {
+                return;
+            }
+            long meetings = 0;
+            long lowerParticipants = 0;
+            for (int n : noShows) {
+                int participants = properties.numBoats - n;
+                meetings += participants * (participants - 1) / 2;
+                if (n > 0) {
+                    lowerParticipants += participants;
+                }
+            }
+            int spread = noShows[0] - noShows[noShows.length - 1];
+            spreads.merge(meetings << 32 | lowerParticipants, spread, Math::min);
+            return;
+        }
+        for (int n = Math.min(left, max); n >= 0; n--) {
+            noShows[race] = n;
+            addProfiles(noShows, race + 1, left - n, n, spreads);
+        }
+    }
+
+    /**
+     * @return a lower bound of the costs of any schedule with {@code flights} flights
+     */
+    public double get(int flights) {
+        return bounds[flights];
+    }
+
+    /**
+     * @param base the match matrix of the flights before
+     * @return a lower bound of the costs of any schedule which adds one flight to {@code base}
+     */
+    public double next(MatchMatrix base) {
+        int[] histogram = base.getValueHistogram();
+        long cellSum = base.getCellSum();
+        int maxLowerParticipants = 0;
+        for (byte count : base.lowerParticipants) {
+            maxLowerParticipants = Math.max(maxLowerParticipants, count);
+        }
+        int[] lowerHistogram = new int[maxLowerParticipants + 1];
+        long lowerSum = 0;
+        for (int team = 0; team < properties.numTeams; team++) {
+            lowerHistogram[base.lowerParticipants[team]]++;
+            lowerSum += base.lowerParticipants[team];
+        }
+        double bound = Double.POSITIVE_INFINITY;
+        for (int[] profile : profiles) {
+            double lower = lowerSum + profile[1] > 0
+                    ? incremented(lowerHistogram, lowerSum, profile[1], properties.numTeams) * optConfig.factorLessParticipants
+                    : 0;
+            bound = Math.min(bound, incremented(histogram, cellSum, profile[0], cellCount) + lower
+                    + teamMissing(profile[2]));
+        }
+        return bound;
+    }
+
+    /**
+     * @return true if {@code costs} reached {@code bound} - up to the rounding of the sums - so they cannot be improved
+     */
+    public static boolean reached(double costs, double bound) {
+        return costs <= bound + 1e-6 * Math.max(1, Math.abs(bound));
+    }
+
+    /**
+     * @return the share of {@code costs} above {@code bound}, 0 if the bound is reached
+     */
+    public static double gap(double costs, double bound) {
+        return reached(costs, bound) ? 0 : (costs - Math.max(0, bound)) / costs;
+    }
+
+    private double lowerParticipantsBound(long sum) {
+        return sum > 0 ? evenDeviation(sum, properties.numTeams) * optConfig.factorLessParticipants : 0;
+    }
+
+    private double teamMissing(int spread) {
+        return !properties.isFull && optConfig.factorTeamMissing > 0.0 ? spread * optConfig.factorTeamMissing : 0.0;
+    }
+
+    /**
+     * @return the cubic deviation from their average of {@code count} integers with the sum {@code sum}, spread as
+     * evenly as possible
+     */
+    private static double evenDeviation(long sum, int count) {
+        double avg = ((double) sum) / count;
+        long floor = sum / count;
+        long above = sum - floor * count;
+        return above * cube(floor + 1 - avg) + (count - above) * cube(avg - floor);
+    }
+
+    /**
+     * @return the cubic deviation from the new average if the {@code increments} smallest of the values counted in
+     * {@code histogram} are increased by one
+     */
+    private static double incremented(int[] histogram, long sum, int increments, int count) {
+        double avg = ((double) (sum + increments)) / count;
+        double res = 0;
+        int left = increments;
+        for (int v = 0; v < histogram.length; v++) {
+            int up = Math.min(left, histogram[v]);
+            left -= up;
+            res += up * cube(v + 1 - avg) + (histogram[v] - up) * cube(v - avg);
+        }
+        return res;
+    }
+
+    private static double cube(double diff) {
+        return Math.abs(diff * diff * diff);
+    }
+}
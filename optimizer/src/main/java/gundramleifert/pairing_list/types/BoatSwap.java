@@ -0,0 +1,19 @@
+package gundramleifert.pairing_list.types;
+
+/**
+ * Describes a swap of the teams sailing {@code boat1} and {@code boat2} in one race, as done by
+ * {@link gundramleifert.pairing_list.MutationUtil#swapBoatsInPlace}.
+ */
+public class BoatSwap {
+    public final int flight;
+    public final int race;
+    public final int boat1;
+    public final int boat2;
+
+    public BoatSwap(int flight, int race, int boat1, int boat2) {
+        this.flight = flight;
+        this.race = race;
+        this.boat1 = boat1;
+        this.boat2 = boat2;
+    }
+}
@@ -0,0 +1,35 @@
+package gundramleifert.pairing_list.types;
+
+/**
+ * Remembers the race order and the teams of one flight, so a mutation applied in place can be reverted without
+ * copying the flight. The buffers are reused for every flight of the same shape.
+ */
+public class FlightUndoLog {
+    private Flight flight;
+    private Race[] races = new Race[0];
+    private byte[][] teams = new byte[0][];
+
+    public void record(Flight flight) {
+        this.flight = flight;
+        Race[] src = flight.races;
+        if (races.length != src.length) {
+            races = new Race[src.length];
+            teams = new byte[src.length][];
+        }
+        for (int i = 0; i < src.length; i++) {
+            races[i] = src[i];
+            byte[] t = src[i].teams;
+            if (teams[i] == null || teams[i].length != t.length) {
+                teams[i] = new byte[t.length];
+            }
+            System.arraycopy(t, 0, teams[i], 0, t.length);
+        }
+    }
+
+    public void revert() {
+        System.arraycopy(races, 0, flight.races, 0, races.length);
+        for (int i = 0; i < races.length; i++) {
+            System.arraycopy(teams[i], 0, races[i].teams, 0, teams[i].length);
+        }
+    }
+}
@@ -2,12 +2,36 @@ package gundramleifert.pairing_list.types;
 
 import java.util.ArrayList;
 
+/**
+ * What happens between two flights. The teams are kept as {@link TeamSet}s with {@link TeamSet#MAX_WORDS} words,
+ * the lists of team ids are only created on demand for display.
+ */
 public class InterFlightStat {
-    public ArrayList<Byte> teamsChangeBoats = new ArrayList<>();
-    public ArrayList<Byte> teamsStayOnBoat = new ArrayList<>();
-    public ArrayList<Byte> teamsAtWaterAtLastRace = new ArrayList<>();
-    public ArrayList<Byte> teamsAtWaterAtFirstRace = new ArrayList<>();
+    public final long[] teamsChangeBoats = new long[TeamSet.MAX_WORDS];
+    public final long[] teamsStayOnBoat = new long[TeamSet.MAX_WORDS];
+    public final long[] teamsAtWaterAtLastRace = new long[TeamSet.MAX_WORDS];
+    public final long[] teamsAtWaterAtFirstRace = new long[TeamSet.MAX_WORDS];
     public int shuttleLastRace;
     public int shuttleFirstRace;
     public int shuttleBetweenFlight;
+
+    public int numTeamsChangeBoats() {
+        return TeamSet.size(teamsChangeBoats, 0, TeamSet.MAX_WORDS);
+    }
+
+    public ArrayList<Byte> getTeamsChangeBoats() {
+        return TeamSet.toList(teamsChangeBoats, 0, TeamSet.MAX_WORDS);
+    }
+
+    public ArrayList<Byte> getTeamsStayOnBoat() {
+        return TeamSet.toList(teamsStayOnBoat, 0, TeamSet.MAX_WORDS);
+    }
+
+    public ArrayList<Byte> getTeamsAtWaterAtLastRace() {
+        return TeamSet.toList(teamsAtWaterAtLastRace, 0, TeamSet.MAX_WORDS);
+    }
+
+    public ArrayList<Byte> getTeamsAtWaterAtFirstRace() {
+        return TeamSet.toList(teamsAtWaterAtFirstRace, 0, TeamSet.MAX_WORDS);
+    }
 }
@@ -0,0 +1,195 @@
+package gundramleifert.pairing_list.types;
+
+import gundramleifert.pairing_list.configs.ScheduleConfig;
+import gundramleifert.pairing_list.cost_calculators.BoatScheduleCosts;
+
+import java.util.Arrays;
+
+/**
+ * A schedule as one contiguous array of team ids, ordered by flight, race and boat. Used by the hot loops of the
+ * optimizer instead of the {@link Schedule} object graph: a copy is a single {@link System#arraycopy}, a swap touches
+ * only the array and a whole population stays cache friendly. All races need the same number of boats and all
+ * flights the same number of races. Each race also carries the {@link TeamSet} of its teams, which does not change
+ * when boats are swapped.
+ */
+public class PackedSchedule {
+    public final int flights;
+    public final int races;
+    public final int boats;
+    public final byte[] teams;
+    /**
+     * Words of a {@link TeamSet} in {@link #raceTeams}.
+     */
+    public final int words;
+    /**
+     * The team set of each race, at {@link #setOffset(int, int)}.
+     */
+    public final long[] raceTeams;
+
+    private int generation = 0;
+    private long zobristHash;
+    private BoatScheduleCosts boatScheduleCosts;
+
+    private PackedSchedule(int flights, int races, int boats, int words) {
+        this.flights = flights;
+        this.races = races;
+        this.boats = boats;
+        this.teams = new byte[flights * races * boats];
+        this.words = words;
+        this.raceTeams = new long[flights * races * words];
+    }
+
+    private PackedSchedule(PackedSchedule toCopy) {
+        this.flights = toCopy.flights;
+        this.races = toCopy.races;
+        this.boats = toCopy.boats;
+        this.teams = toCopy.teams.clone();
+        this.words = toCopy.words;
+        this.raceTeams = toCopy.raceTeams.clone();
+        this.zobristHash = toCopy.zobristHash;
+    }
+
+    public static PackedSchedule of(Schedule schedule) {
+        Race[] firstRaces = schedule.get(0).races;
+        int maxTeam = 0;
+        for (int f = 0; f < schedule.size(); f++) {
+            for (Race race : schedule.get(f).races) {
+                for (byte team : race.teams) {
+                    maxTeam = Math.max(maxTeam, team);
+                }
+            }
+        }
+        PackedSchedule res = new PackedSchedule(schedule.size(), firstRaces.length, firstRaces[0].teams.length,
+                TeamSet.words(maxTeam + 1));
+        for (int f = 0; f < res.flights; f++) {
+            Race[] races = schedule.get(f).races;
+            if (races.length != res.races) {
+                throw new IllegalArgumentException("flight " + f + " has " + races.length + " races, expected " + res.races);
+            }
+            for (int r = 0; r < res.races; r++) {
+                byte[] teams = races[r].teams;
+                if (teams.length != res.boats) {
+                    throw new IllegalArgumentException("race " + r + " of flight " + f + " has " + teams.length + " teams, expected " + res.boats);
+                }
+                System.arraycopy(teams, 0, res.teams, res.offset(f, r), res.boats);
+                TeamSet.of(teams, 0, res.boats, res.raceTeams, res.setOffset(f, r), res.words);
+            }
+        }
+        return res;
+    }
+
+    public Flight getFlight(int flight) {
+        Race[] res = new Race[races];
+        for (int r = 0; r < races; r++) {
+            res[r] = new Race(Arrays.copyOfRange(teams, offset(flight, r), offset(flight, r) + boats));
+        }
+        return new Flight(res);
+    }
+
+    public Schedule toSchedule(ScheduleConfig config) {
+        Schedule res = new Schedule(config);
+        for (int f = 0; f < flights; f++) {
+            res.add(getFlight(f));
+        }
+        return res;
+    }
+
+    public int offset(int flight) {
+        return flight * races * boats;
+    }
+
+    public int offset(int flight, int race) {
+        return (flight * races + race) * boats;
+    }
+
+    public int setOffset(int flight, int race) {
+        return (flight * races + race) * words;
+    }
+
+    public byte get(int flight, int race, int boat) {
+        return teams[offset(flight, race) + boat];
+    }
+
+    public void swapBoats(int flight, int race, int boat1, int boat2) {
+        int off = offset(flight, race);
+        byte team = teams[off + boat1];
+        teams[off + boat1] = teams[off + boat2];
+        teams[off + boat2] = team;
+    }
+
+    /**
+     * Overwrites the boats of flight {@code flight} with {@code flightTeams}, laid out as in {@link #teams}. Only the
+     * boats may change, each race has to keep its teams.
+     */
+    public void setBoats(int flight, byte[] flightTeams) {
+        System.arraycopy(flightTeams, 0, teams, offset(flight), flightTeams.length);
+    }
+
+    public void swapRaces(int flight, int race1, int race2) {
+        int off1 = offset(flight, race1);
+        int off2 = offset(flight, race2);
+        for (int b = 0; b < boats; b++) {
+            byte team = teams[off1 + b];
+            teams[off1 + b] = teams[off2 + b];
+            teams[off2 + b] = team;
+        }
+        int set1 = setOffset(flight, race1);
+        int set2 = setOffset(flight, race2);
+        for (int w = 0; w < words; w++) {
+            long set = raceTeams[set1 + w];
+            raceTeams[set1 + w] = raceTeams[set2 + w];
+            raceTeams[set2 + w] = set;
+        }
+    }
+
+    /**
+     * A copy of the teams, their sets and the Zobrist hash, the age and the cached costs are not copied.
+     */
+    public PackedSchedule copy() {
+        return new PackedSchedule(this);
+    }
+
+    public BoatScheduleCosts getBoatScheduleCosts() {
+        return boatScheduleCosts;
+    }
+
+    public void setBoatScheduleCosts(BoatScheduleCosts boatScheduleCosts) {
+        this.boatScheduleCosts = boatScheduleCosts;
+    }
+
+    /**
+     * The hash maintained by {@link gundramleifert.pairing_list.Zobrist}, not related to {@link #hashCode()}.
+     */
+    public long getZobristHash() {
+        return zobristHash;
+    }
+
+    public void setZobristHash(long zobristHash) {
+        this.zobristHash = zobristHash;
+    }
+
+    public void getOlder() {
+        generation++;
+    }
+
+    public int getAge() {
+        return generation;
+    }
+
+    public void resetAge() {
+        generation = 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PackedSchedule that = (PackedSchedule) o;
+        return races == that.races && boats == that.boats && Arrays.equals(teams, that.teams);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(teams);
+    }
+}
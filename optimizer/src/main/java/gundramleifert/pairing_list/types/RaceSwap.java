@@ -0,0 +1,17 @@
+package gundramleifert.pairing_list.types;
+
+/**
+ * Describes a swap of the order of two races in one flight, as done by
+ * {@link gundramleifert.pairing_list.MutationUtil#swapRacesInPlace}.
+ */
+public class RaceSwap {
+    public final int flight;
+    public final int race1;
+    public final int race2;
+
+    public RaceSwap(int flight, int race1, int race2) {
+        this.flight = flight;
+        this.race1 = race1;
+        this.race2 = race2;
+    }
+}
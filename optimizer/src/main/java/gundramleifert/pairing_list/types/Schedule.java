@@ -3,9 +3,12 @@ package gundramleifert.pairing_list.types;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import gundramleifert.pairing_list.MatchMatrix;
+import gundramleifert.pairing_list.MatchMatrixDelta;
 import gundramleifert.pairing_list.Util;
 import gundramleifert.pairing_list.Yaml;
+import gundramleifert.pairing_list.Zobrist;
 import gundramleifert.pairing_list.configs.ScheduleConfig;
+import gundramleifert.pairing_list.cost_calculators.ICostCalculator;
 import lombok.SneakyThrows;
 
 import java.io.BufferedWriter;
@@ -20,15 +23,23 @@ public class Schedule {
 
     private int hash = 0;
     private int generation = 0;
-    public HashMap<Object, Double> scoreMap = new HashMap<>(2);
+    // cached scores indexed by ICostCalculator.getCacheSlot(), bit i of scoreValid marks slot i as filled
+    private final double[] scores = new double[ICostCalculator.SLOTS];
+    private int scoreValid = 0;
+    private long lastFlightHash;
+    private boolean lastFlightHashValid = false;
 
-    @JsonProperty
-    private List<Flight> flights = new ArrayList<>();
+    // never changed in place once set, writing a slot copies the array - so copies may share it
+    private Flight[] flights = new Flight[0];
 
     private MatchMatrix matchMatrix;
+    private MatchMatrixDelta matchMatrixDelta;
     private BoatMatrix boatMatrix;
 
-    private Schedule base;
+    // match matrix of the schedule this one was derived from by adding a flight, shared by all of its children -
+    // the base schedule itself is not referenced, so ancestors do not stay reachable through their descendants. The
+    // boat matrix is only built from the flights if it is needed, the match matrix phase never does.
+    private MatchMatrix baseMatchMatrix;
 
     private ScheduleConfig config=null;
 
@@ -42,16 +53,36 @@ public class Schedule {
     }
 
     public Schedule(Schedule base, Flight flight) {
-        this.base = base;
         if (base != null) {
-            this.config = this.base.config;
-            flights.addAll(base.flights);
+            this.config = base.config;
+            this.baseMatchMatrix = base.getMatchMatrix();
+            this.flights = base.flights;
         }
-        flights.add(flight);
+        flights = with(flights, flights.length, flight);
+    }
+
+    /**
+     * A copy of {@code flights} with {@code flight} at {@code index}, which may be the next one after the end.
+     */
+    private static Flight[] with(Flight[] flights, int index, Flight flight) {
+        Flight[] res = Arrays.copyOf(flights, Math.max(flights.length, index + 1));
+        res[index] = flight;
+        return res;
+    }
+
+
+    @JsonProperty("flights")
+    private List<Flight> getFlightList() {
+        return Arrays.asList(flights);
+    }
+
+    @JsonProperty("flights")
+    private void setFlightList(List<Flight> flights) {
+        this.flights = flights.toArray(new Flight[0]);
     }
 
     public Flight lastFlight() {
-        return flights.get(flights.size() - 1);
+        return flights[flights.length - 1];
     }
 
 //    public void setBase(Schedule schedule) {
@@ -59,13 +90,13 @@ public class Schedule {
 //    }
 
     public void add(Flight flight) {
-        this.flights.add(flight);
+        this.flights = with(this.flights, this.flights.length, flight);
         this.getMatchMatrix().add(flight);
         this.getBoatMatrix().add(flight);
     }
 
     public void set(int index, Flight flight) {
-        flights.set(index, flight);
+        flights = with(flights, index, flight);
         throw new RuntimeException("not able with current matchmatrix-calculation");
     }
 
@@ -77,15 +108,44 @@ public class Schedule {
         Schedule schedule = (Schedule) o;
 
         // Probably incorrect - comparing Object[] arrays with Arrays.equals
-        return flights.equals(schedule.flights);
+        return Arrays.equals(flights, schedule.flights);
     }
 
     @Override
     public int hashCode() {
-        if (hash == 0) hash = flights.hashCode();
+        if (hash == 0) hash = Arrays.hashCode(flights);
         return hash;
     }
 
+    /**
+     * The order independent {@link Zobrist} hash of the last flight - within one population all individuals share
+     * their base, so it identifies the schedule there.
+     */
+    public long getLastFlightHash() {
+        if (!lastFlightHashValid) {
+            setLastFlightHash(Zobrist.hash(lastFlight()));
+        }
+        return lastFlightHash;
+    }
+
+    public void setLastFlightHash(long lastFlightHash) {
+        this.lastFlightHash = lastFlightHash;
+        this.lastFlightHashValid = true;
+    }
+
+    public boolean hasScore(int slot) {
+        return (scoreValid & (1 << slot)) != 0;
+    }
+
+    public double getScore(int slot) {
+        return scores[slot];
+    }
+
+    public void setScore(int slot, double score) {
+        scores[slot] = score;
+        scoreValid |= 1 << slot;
+    }
+
     public void getOlder() {
         generation++;
     }
@@ -98,94 +158,88 @@ public class Schedule {
         generation = 0;
     }
 
+    /**
+     * Lets the match matrix be derived from the parent's matrix and a swap instead of from the base schedule.
+     */
+    public void setMatchMatrixDelta(MatchMatrixDelta matchMatrixDelta) {
+        this.matchMatrixDelta = matchMatrixDelta;
+    }
+
+    public MatchMatrixDelta getMatchMatrixDelta() {
+        return matchMatrixDelta;
+    }
+
     public MatchMatrix getMatchMatrix() {
+        if (matchMatrix == null && matchMatrixDelta != null) {
+            matchMatrix = matchMatrixDelta.getMatchMatrix();
+        }
         if (matchMatrix == null) {
-            matchMatrix = new MatchMatrix(base.getMatchMatrix());
-            matchMatrix.add(flights.get(flights.size() - 1));
+            matchMatrix = new MatchMatrix(baseMatchMatrix);
+            matchMatrix.add(lastFlight());
         }
         return matchMatrix;
     }
 
     public BoatMatrix getBoatMatrix() {
         if (boatMatrix == null) {
-            boatMatrix = new BoatMatrix(base.getBoatMatrix());
-            boatMatrix.add(flights.get(flights.size() - 1));
+            boatMatrix = new BoatMatrix(config);
+            for (Flight flight : flights) {
+                boatMatrix.add(flight);
+            }
         }
         return boatMatrix;
     }
 
 
     public Schedule(MatchMatrix mm, Flight flight) {
-        this.base = null;
         this.matchMatrix = mm;
         this.matchMatrix.add(flight);
-        this.flights = new ArrayList<>(1);
-        this.flights.add(flight);
+        this.flights = new Flight[]{flight};
+    }
+
+    public ScheduleConfig getConfig() {
+        return config;
     }
 
     public Flight get(int i) {
-        return flights.get(i);
+        return flights[i];
     }
 
     public int size() {
-        return flights.size();
+        return flights.length;
     }
 
     public Schedule copy() {
-        if (base == null) {
-            //flat
-            return new Schedule(matchMatrix, flights.get(0).copy());
+        if (baseMatchMatrix == null && flights.length > 1) {
+            // flat with several flights, e.g. a deep copy
+            Schedule schedule = new Schedule(this.config);
+            for (int i = 0; i < flights.length - 1; i++) {
+                schedule.add(flights[i]);
+            }
+            schedule.add(lastFlight().copy());
+            return schedule;
         }
-        return new Schedule(base, lastFlight().copy());
-    }
-
-    public Schedule deepCopy(int index, Flight flight) {
-        Schedule schedule = new Schedule(this.config);
-        schedule.base = this.base;
-        ArrayList<Flight> fs = new ArrayList<>(this.flights);
-        fs.set(index, flight);
-        for (Flight f : fs) {
-            schedule.add(f);
+        if (baseMatchMatrix == null) {
+            //flat
+            return new Schedule(matchMatrix, flights[0].copy());
         }
+        // a sibling: same base, copy of the last flight
+        Schedule schedule = new Schedule();
+        schedule.config = this.config;
+        schedule.baseMatchMatrix = this.baseMatchMatrix;
+        schedule.flights = with(this.flights, this.flights.length - 1, lastFlight().copy());
         return schedule;
     }
 
     public Schedule deepCopy() {
         Schedule schedule = new Schedule(this.config);
-        schedule.base = this.base;
-        ArrayList<Flight> fs = new ArrayList<>(this.flights);
-        for (Flight f : fs) {
-            schedule.add(f.copy());
+        schedule.baseMatchMatrix = this.baseMatchMatrix;
+        for (int i = 0; i < this.flights.length; i++) {
+            schedule.add(this.flights[i].copy());
         }
         return schedule;
     }
 
-    public Schedule copy(int firstFlightToChange, Flight flight) {
-        Schedule scheduleToCopy = this;
-        LinkedList<Flight> flightsToAdd = new LinkedList<>();
-        while (scheduleToCopy != null && scheduleToCopy.size() > firstFlightToChange) {
-            flightsToAdd.addFirst(scheduleToCopy.lastFlight());
-            scheduleToCopy = scheduleToCopy.base;
-        }
-        if (scheduleToCopy == null) {
-            scheduleToCopy = new Schedule(this.config);
-        } else {
-            if (scheduleToCopy.base == null) {
-                Flight flight1 = scheduleToCopy.lastFlight();
-                scheduleToCopy = new Schedule(this.config);
-                scheduleToCopy.add(flight1);
-            } else {
-                scheduleToCopy = scheduleToCopy.copy();
-            }
-        }
-        flightsToAdd.removeFirst();
-        scheduleToCopy.add(flight);
-        for (Flight f : flightsToAdd) {
-            scheduleToCopy.add(f);
-        }
-        return scheduleToCopy;
-    }
-
     public static Schedule readYaml(final File file, ScheduleConfig config) throws IOException {
         System.out.println("AATTTENTION: CONFIG IS IGNORED");
         return Yaml.dftMapper().readValue(file, Schedule.class);
@@ -203,8 +257,8 @@ public class Schedule {
         StringBuilder sb = new StringBuilder();
         int boats = 0;
         int countRace = 0;
-        for (int i = 0; i < flights.size(); i++) {
-            Flight flight = flights.get(i);
+        for (int i = 0; i < flights.length; i++) {
+            Flight flight = flights[i];
             for (int j = 0; j < flight.races.length; j++) {
                 countRace++;
                 Race race = flight.races[j];
@@ -0,0 +1,84 @@
+package gundramleifert.pairing_list.types;
+
+import java.util.ArrayList;
+
+/**
+ * Sets of team ids as bitmasks: bit {@code t % 64} of word {@code t / 64}. Overlaps between races are counted with
+ * AND and {@link Long#bitCount} instead of comparing every pair of teams. A set is stored at an offset in a
+ * {@code long[]}, so the sets of all races of a schedule can live in one array.
+ */
+public final class TeamSet {
+
+    /**
+     * Enough words for every team id that fits into a byte.
+     */
+    public static final int MAX_WORDS = words(Byte.MAX_VALUE + 1);
+
+    private TeamSet() {
+    }
+
+    public static int words(int teams) {
+        return (teams + 63) >>> 6;
+    }
+
+    public static void add(long[] set, int off, int team) {
+        set[off + (team >>> 6)] |= 1L << team;
+    }
+
+    public static boolean contains(long[] set, int off, int team) {
+        return (set[off + (team >>> 6)] & 1L << team) != 0;
+    }
+
+    public static void of(byte[] teams, int from, int count, long[] set, int off, int words) {
+        for (int w = 0; w < words; w++) {
+            set[off + w] = 0L;
+        }
+        for (int i = from; i < from + count; i++) {
+            add(set, off, teams[i]);
+        }
+    }
+
+    public static int size(long[] set, int off, int words) {
+        int res = 0;
+        for (int w = 0; w < words; w++) {
+            res += Long.bitCount(set[off + w]);
+        }
+        return res;
+    }
+
+    public static int intersectionSize(long[] set1, int off1, long[] set2, int off2, int words) {
+        int res = 0;
+        for (int w = 0; w < words; w++) {
+            res += Long.bitCount(set1[off1 + w] & set2[off2 + w]);
+        }
+        return res;
+    }
+
+    /**
+     * Number of teams in the set having an id below {@code numTeams}, which are the teams that really participate.
+     */
+    public static int sizeBelow(long[] set, int off, int words, int numTeams) {
+        int res = 0;
+        for (int w = 0; w < words; w++) {
+            int bits = numTeams - (w << 6);
+            if (bits <= 0) {
+                break;
+            }
+            long mask = bits >= 64 ? -1L : (1L << bits) - 1;
+            res += Long.bitCount(set[off + w] & mask);
+        }
+        return res;
+    }
+
+    public static ArrayList<Byte> toList(long[] set, int off, int words) {
+        ArrayList<Byte> res = new ArrayList<>(size(set, off, words));
+        for (int w = 0; w < words; w++) {
+            long word = set[off + w];
+            while (word != 0) {
+                res.add((byte) ((w << 6) + Long.numberOfTrailingZeros(word)));
+                word &= word - 1;
+            }
+        }
+        return res;
+    }
+}
@@ -0,0 +1,38 @@
+package gundramleifert.pairing_list.types;
+
+/**
+ * Describes a swap of two teams between two races of the same flight, as done by
+ * {@link gundramleifert.pairing_list.MutationUtil#swapBetweenRaces}. The races refer to the state after the swap:
+ * {@code team1} moved from {@code race1} to {@code race2} and {@code team2} moved from {@code race2} to
+ * {@code race1}.
+ */
+public class TeamSwap {
+    public final Race race1;
+    public final Race race2;
+    public final byte team1;
+    public final byte team2;
+
+    public TeamSwap(Race race1, Race race2, byte team1, byte team2) {
+        this.race1 = race1;
+        this.race2 = race2;
+        this.team1 = team1;
+        this.team2 = team2;
+    }
+
+    /**
+     * The same swap referring to the races of {@code copy}, which has to be a copy of {@code flight}.
+     */
+    public TeamSwap onCopy(Flight flight, Flight copy) {
+        Race r1 = null;
+        Race r2 = null;
+        for (int i = 0; i < flight.races.length; i++) {
+            if (flight.races[i] == race1) {
+                r1 = copy.races[i];
+            }
+            if (flight.races[i] == race2) {
+                r2 = copy.races[i];
+            }
+        }
+        return new TeamSwap(r1, r2, team1, team2);
+    }
+}
@@ -0,0 +1,55 @@
+package gundramleifert.pairing_list;
+
+import gundramleifert.pairing_list.configs.OptMatchMatrixConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("ConvergenceDetector Tests")
+class ConvergenceDetectorTest {
+
+    @Test
+    @DisplayName("is off without a convergence window")
+    void offWithoutWindow() {
+        assertNull(ConvergenceDetector.of(TestConfigs.matchMatrix()));
+    }
+
+    @Test
+    @DisplayName("rejects a convergence window without a positive minimal improvement")
+    void rejectsWindowWithoutThreshold() {
+        OptMatchMatrixConfig config = TestConfigs.matchMatrix();
+        config.convergenceWindow = 80;
+        assertThrows(IllegalArgumentException.class, () -> ConvergenceDetector.of(config));
+        config.minImprovementPerSecond = -1;
+        assertThrows(IllegalArgumentException.class, () -> ConvergenceDetector.of(config));
+    }
+
+    @Test
+    @DisplayName("stops a plateau once the samples span the window")
+    void stopsPlateau() {
+        OptMatchMatrixConfig config = TestConfigs.matchMatrix();
+        config.convergenceWindow = 80;
+        config.minImprovementPerSecond = 1e-9;
+        ConvergenceDetector detector = ConvergenceDetector.of(config);
+        for (int sample = 0; sample < ConvergenceDetector.SAMPLES; sample++) {
+            assertFalse(detector.converged(10, 0), "window not spanned after " + sample + " samples");
+        }
+        assertTrue(detector.converged(10, 0), "plateau not detected");
+    }
+
+    @Test
+    @DisplayName("does not stop while the diversity grows")
+    void keepsSpreadingPopulation() {
+        OptMatchMatrixConfig config = TestConfigs.matchMatrix();
+        config.convergenceWindow = 80;
+        config.minImprovementPerSecond = 1e-9;
+        ConvergenceDetector detector = ConvergenceDetector.of(config);
+        for (int sample = 0; sample <= 2 * ConvergenceDetector.SAMPLES; sample++) {
+            assertFalse(detector.converged(10, sample), "converged at sample " + sample);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package gundramleifert.pairing_list;
+
+import gundramleifert.pairing_list.configs.OptMatchMatrixConfig;
+import gundramleifert.pairing_list.configs.ScheduleConfig;
+import gundramleifert.pairing_list.cost_calculators.CostCalculatorMatchMatrix;
+import gundramleifert.pairing_list.types.Flight;
+import gundramleifert.pairing_list.types.FlightUndoLog;
+import gundramleifert.pairing_list.types.Schedule;
+import gundramleifert.pairing_list.types.TeamSwap;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The match matrix GA scores swaps incrementally and reverts them from an undo log (see
+ * {@code Optimizer.evolveMatchMatrix}); both have to agree with scoring the changed schedule from scratch.
+ */
+@DisplayName("MatchMatrixDelta Tests")
+class MatchMatrixDeltaTest {
+
+    // teams, boats, flights: full and with no-shows
+    private static final int[][] SHAPES = {{12, 3, 5}, {12, 6, 4}, {14, 4, 5}, {35, 5, 4}, {7, 3, 6}};
+
+    @Test
+    @DisplayName("scoreSwap equals the full score of the swapped schedule")
+    void scoreSwapMatchesFullScore() {
+        SplittableRandom random = new SplittableRandom(5);
+        for (int[] shape : SHAPES) {
+            ScheduleConfig properties = TestConfigs.schedule(shape[0], shape[1], shape[2]);
+            OptMatchMatrixConfig config = TestConfigs.matchMatrix();
+            CostCalculatorMatchMatrix scorer = new CostCalculatorMatchMatrix(properties, config);
+            FlightUndoLog undo = new FlightUndoLog();
+            for (int trial = 0; trial < 10; trial++) {
+                Schedule parent = randomSchedule(properties, random);
+                double parentScore = scorer.score(parent);
+                for (int step = 0; step < 200; step++) {
+                    MatchMatrix parentMatrix = parent.getMatchMatrix();
+                    Flight flight = parent.lastFlight();
+                    Flight before = flight.copy();
+                    undo.record(flight);
+                    TeamSwap swap = MutationUtil.swapBetweenRaces(parent, random);
+                    MatchMatrixDelta delta = scorer.scoreSwap(parentScore, parentMatrix, swap, flight);
+                    double score = delta.getScore();
+                    Schedule swapped = rebuild(parent, properties);
+                    assertEquals(scorer.score(swapped), score, 1e-9, "score of swap " + step);
+
+                    // the child as the GA keeps it: a copy of the swapped flight, matrix derived from the delta
+                    Schedule mutation = parent.copy();
+                    mutation.setMatchMatrixDelta(new MatchMatrixDelta(parentMatrix, swap.onCopy(flight, mutation.lastFlight())));
+                    assertArrayEquals(swapped.getMatchMatrix().cells, mutation.getMatchMatrix().cells,
+                            "match matrix of swap " + step);
+                    assertArrayEquals(swapped.getMatchMatrix().lowerParticipants,
+                            mutation.getMatchMatrix().lowerParticipants, "less participants of swap " + step);
+
+                    undo.revert();
+                    assertEquals(before, parent.lastFlight(), "flight after revert of swap " + step);
+                    assertEquals(parentScore, scorer.score(rebuild(parent, properties)), 1e-9);
+                    if (random.nextBoolean()) {
+                        // continue from the child, so its lazily built matrix becomes a parent matrix
+                        parent = mutation;
+                        parentScore = score;
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("applyToParent turns the parent matrix into the one of the swapped schedule")
+    void applyToParentMatchesFullScore() {
+        SplittableRandom random = new SplittableRandom(9);
+        ScheduleConfig properties = TestConfigs.schedule(14, 4, 5);
+        CostCalculatorMatchMatrix scorer = new CostCalculatorMatchMatrix(properties, TestConfigs.matchMatrix());
+        Schedule schedule = randomSchedule(properties, random);
+        for (int step = 0; step < 200; step++) {
+            MatchMatrix matrix = new MatchMatrix(schedule.getMatchMatrix());
+            TeamSwap swap = MutationUtil.swapBetweenRaces(schedule, random);
+            new MatchMatrixDelta(matrix, swap).applyToParent();
+            schedule = rebuild(schedule, properties);
+            assertArrayEquals(schedule.getMatchMatrix().cells, matrix.cells, "match matrix of swap " + step);
+            assertEquals(scorer.score(schedule.getMatchMatrix()), scorer.score(matrix), 1e-9);
+        }
+    }
+
+    /**
+     * A random schedule whose last flight is added on top of the others, as the GA builds them.
+     */
+    private static Schedule randomSchedule(ScheduleConfig properties, SplittableRandom random) {
+        Schedule base = new Schedule(properties);
+        for (int f = 0; f + 1 < properties.flights; f++) {
+            base.add(Util.getRandomFlight(properties, random));
+        }
+        return new Schedule(base, Util.getRandomFlight(properties, random));
+    }
+
+    /**
+     * A flat copy of the flights of {@code schedule}, its matrix counted from scratch.
+     */
+    private static Schedule rebuild(Schedule schedule, ScheduleConfig properties) {
+        Schedule res = new Schedule(properties);
+        for (int f = 0; f < schedule.size(); f++) {
+            res.add(schedule.get(f).copy());
+        }
+        return res;
+    }
+}
@@ -0,0 +1,98 @@
+package gundramleifert.pairing_list;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link PopulationIndex} deletes by shifting entries back instead of leaving tombstones; after any sequence of adds
+ * and removes every remaining individual has to be found from its home slot, also across the end of the table.
+ */
+@DisplayName("PopulationIndex Tests")
+class PopulationIndexTest {
+
+    private record Item(int id) {
+    }
+
+    // the initial table has 64 slots, so 63 is the last home slot and 0 the first one after the wrap-around
+    private static final long LAST = 63;
+    private static final long FIRST = 0;
+
+    @Test
+    @DisplayName("backward shift deletion keeps a probe sequence that wraps around intact")
+    void removeAcrossWrapAround() {
+        PopulationIndex<Item> index = new PopulationIndex<>();
+        Item a = new Item(1);
+        Item b = new Item(2);
+        Item c = new Item(3);
+        Item d = new Item(4);
+        // a, b and c probe from slot 63 to 63, 0 and 1; d's home 0 is taken, so it lands in 2
+        index.add(LAST, a);
+        index.add(LAST, b);
+        index.add(LAST, c);
+        index.add(FIRST, d);
+
+        assertTrue(index.remove(LAST, a));
+        assertFalse(index.contains(LAST, new Item(1)), "removed item still found");
+        assertTrue(index.contains(LAST, new Item(2)), "b lost after removing a");
+        assertTrue(index.contains(LAST, new Item(3)), "c lost after removing a");
+        assertTrue(index.contains(FIRST, new Item(4)), "d lost after removing a");
+
+        assertTrue(index.remove(FIRST, d));
+        assertTrue(index.contains(LAST, new Item(2)), "b lost after removing d");
+        assertTrue(index.contains(LAST, new Item(3)), "c lost after removing d");
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    @DisplayName("removes by identity and ignores the candidate itself")
+    void identity() {
+        PopulationIndex<Item> index = new PopulationIndex<>();
+        Item a = new Item(1);
+        index.add(5, a);
+        assertFalse(index.contains(5, a), "an individual is no duplicate of itself");
+        assertTrue(index.contains(5, new Item(1)));
+        assertFalse(index.contains(6, new Item(1)), "found with another hash");
+        assertFalse(index.remove(5, new Item(1)), "removed an equal but different individual");
+        assertTrue(index.remove(5, a));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    @DisplayName("random adds and removes with colliding hashes agree with a list")
+    void randomOperations() {
+        SplittableRandom random = new SplittableRandom(3);
+        PopulationIndex<Item> index = new PopulationIndex<>();
+        List<Item> items = new ArrayList<>();
+        List<Long> hashes = new ArrayList<>();
+        int next = 0;
+        for (int step = 0; step < 20000; step++) {
+            // few distinct hashes around the end of the table, so probe sequences collide and wrap around; up to
+            // 100 live items make the table grow several times
+            if (items.isEmpty() || (items.size() < 100 && random.nextBoolean())) {
+                Item item = new Item(next++);
+                long hash = random.nextBoolean() ? random.nextLong(60, 64) : random.nextLong(0, 4) + 64L * random.nextInt(4);
+                index.add(hash, item);
+                items.add(item);
+                hashes.add(hash);
+            } else {
+                int k = random.nextInt(items.size());
+                assertTrue(index.remove(hashes.get(k), items.get(k)), "item " + items.get(k) + " not removed");
+                items.remove(k);
+                hashes.remove(k);
+            }
+            assertEquals(items.size(), index.size(), "size after step " + step);
+            for (int k = 0; k < items.size(); k++) {
+                assertTrue(index.contains(hashes.get(k), new Item(items.get(k).id())),
+                        "item " + items.get(k) + " lost after step " + step);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package gundramleifert.pairing_list;
+
+import gundramleifert.pairing_list.configs.BoatConfig;
+import gundramleifert.pairing_list.configs.OptBoatConfig;
+import gundramleifert.pairing_list.configs.OptMatchMatrixConfig;
+import gundramleifert.pairing_list.configs.ScheduleConfig;
+
+/**
+ * Configurations for tests. The config classes are read from yaml and have private constructors, so they are
+ * created reflectively, as the backend does.
+ */
+public final class TestConfigs {
+
+    private TestConfigs() {
+    }
+
+    public static ScheduleConfig schedule(int teams, int boats, int flights) {
+        ScheduleConfig config = new ScheduleConfig();
+        config.flights = flights;
+        config.teams = new String[teams];
+        for (int i = 0; i < teams; i++) {
+            config.teams[i] = "Team " + (i + 1);
+        }
+        config.boats = new BoatConfig[boats];
+        for (int i = 0; i < boats; i++) {
+            config.boats[i] = create(BoatConfig.class);
+            config.boats[i].name = "Boat " + (i + 1);
+        }
+        config.init();
+        return config;
+    }
+
+    public static OptMatchMatrixConfig matchMatrix() {
+        return create(OptMatchMatrixConfig.class);
+    }
+
+    public static OptBoatConfig boats(double weightStayOnBoat, double weightStayOnShuttle,
+                                      double weightChangeBetweenBoats) {
+        OptBoatConfig config = create(OptBoatConfig.class);
+        config.weightStayOnBoat = weightStayOnBoat;
+        config.weightStayOnShuttle = weightStayOnShuttle;
+        config.weightChangeBetweenBoats = weightChangeBetweenBoats;
+        return config;
+    }
+
+    private static <T> T create(Class<T> type) {
+        try {
+            var constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot create " + type.getSimpleName(), e);
+        }
+    }
+}
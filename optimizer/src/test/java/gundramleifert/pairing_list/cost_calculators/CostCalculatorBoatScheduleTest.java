@@ -0,0 +1,145 @@
+package gundramleifert.pairing_list.cost_calculators;
+
+import gundramleifert.pairing_list.TestConfigs;
+import gundramleifert.pairing_list.Util;
+import gundramleifert.pairing_list.configs.OptBoatConfig;
+import gundramleifert.pairing_list.configs.ScheduleConfig;
+import gundramleifert.pairing_list.types.PackedSchedule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("CostCalculatorBoatSchedule Tests")
+class CostCalculatorBoatScheduleTest {
+
+    // teams, boats, flights: full and with no-shows, one and several races per flight
+    private static final int[][] SHAPES = {{12, 6, 6}, {14, 4, 5}, {6, 3, 4}, {3, 3, 5}, {10, 3, 7}};
+    // weightStayOnBoat, weightStayOnShuttle, weightChangeBetweenBoats
+    private static final double[][] WEIGHTS = {{1, 1, 1}, {1, 1, 0.3}, {2, 0, 5}, {0.5, 1, 0}};
+
+    @Test
+    @DisplayName("optimalBoats never raises the score")
+    void optimalBoatsNeverRaisesScore() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int[] shape : SHAPES) {
+            ScheduleConfig properties = TestConfigs.schedule(shape[0], shape[1], shape[2]);
+            for (double[] weights : WEIGHTS) {
+                CostCalculatorBoatSchedule scorer = scorer(properties, weights);
+                for (int trial = 0; trial < 20; trial++) {
+                    PackedSchedule schedule = PackedSchedule.of(Util.getRandomSchedule(properties, random));
+                    double before = scorer.score(schedule);
+                    // sweeps until no flight changes, the rounding of the shuttles matters most near the optimum
+                    for (int sweep = 0; sweep < 5; sweep++) {
+                        for (int f = 0; f < schedule.flights; f++) {
+                            byte[] boats = scorer.optimalBoats(schedule, f);
+                            assertSameRaces(schedule, f, boats);
+                            PackedSchedule assigned = schedule.copy();
+                            assigned.setBoats(f, boats);
+                            double after = scorer.score(assigned);
+                            assertTrue(after <= before + 1e-9,
+                                    "flight " + f + " of " + Arrays.toString(shape) + " got worse");
+                            schedule = assigned;
+                            before = after;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("optimalBoats is optimal for the boat matrix alone")
+    void optimalBoatsMatchesBruteForceWithoutTransitions() {
+        SplittableRandom random = new SplittableRandom(11);
+        ScheduleConfig properties = TestConfigs.schedule(6, 3, 4);
+        CostCalculatorBoatSchedule scorer = scorer(properties, new double[]{0, 0, 0});
+        for (int trial = 0; trial < 20; trial++) {
+            PackedSchedule schedule = PackedSchedule.of(Util.getRandomSchedule(properties, random));
+            scorer.score(schedule);
+            for (int f = 0; f < schedule.flights; f++) {
+                PackedSchedule assigned = schedule.copy();
+                assigned.setBoats(f, scorer.optimalBoats(schedule, f));
+                PackedSchedule work = schedule.copy();
+                double best = bestPermutation(work, f, 0, 0, scorer);
+                assertEquals(best, scorer.score(assigned), 1e-9, "flight " + f);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("optimalBoats keeps teams on their boat across flights if changing boats is expensive")
+    void optimalBoatsKeepsTeamsOnTheirBoat() {
+        SplittableRandom random = new SplittableRandom(3);
+        ScheduleConfig properties = TestConfigs.schedule(12, 6, 5);
+        CostCalculatorBoatSchedule scorer = scorer(properties, new double[]{1, 1, 1000});
+        for (int trial = 0; trial < 20; trial++) {
+            PackedSchedule schedule = PackedSchedule.of(Util.getRandomSchedule(properties, random));
+            scorer.score(schedule);
+            for (int f = 1; f + 1 < schedule.flights; f++) {
+                byte[] boats = scorer.optimalBoats(schedule, f);
+                int last = boats.length - schedule.boats;
+                for (int b = 0; b < schedule.boats; b++) {
+                    byte before = schedule.get(f - 1, schedule.races - 1, b);
+                    if (contains(boats, 0, schedule.boats, before)) {
+                        assertEquals(before, boats[b], "team of the flight before has to stay on boat " + b);
+                    }
+                    byte after = schedule.get(f + 1, 0, b);
+                    if (contains(boats, last, schedule.boats, after)) {
+                        assertEquals(after, boats[last + b], "team of the flight after has to stay on boat " + b);
+                    }
+                }
+            }
+        }
+    }
+
+    private static CostCalculatorBoatSchedule scorer(ScheduleConfig properties, double[] weights) {
+        OptBoatConfig config = TestConfigs.boats(weights[0], weights[1], weights[2]);
+        return new CostCalculatorBoatSchedule(properties, config);
+    }
+
+    /**
+     * The lowest score of all boat permutations of the races of flight {@code f} from {@code race} on.
+     */
+    private static double bestPermutation(PackedSchedule schedule, int f, int race, int boat,
+                                          CostCalculatorBoatSchedule scorer) {
+        if (race == schedule.races) {
+            return scorer.score(schedule.copy());
+        }
+        if (boat == schedule.boats) {
+            return bestPermutation(schedule, f, race + 1, 0, scorer);
+        }
+        double best = Double.POSITIVE_INFINITY;
+        for (int other = boat; other < schedule.boats; other++) {
+            schedule.swapBoats(f, race, boat, other);
+            best = Math.min(best, bestPermutation(schedule, f, race, boat + 1, scorer));
+            schedule.swapBoats(f, race, boat, other);
+        }
+        return best;
+    }
+
+    private static void assertSameRaces(PackedSchedule schedule, int f, byte[] boats) {
+        for (int r = 0; r < schedule.races; r++) {
+            int off = schedule.offset(f, r);
+            byte[] expected = Arrays.copyOfRange(schedule.teams, off, off + schedule.boats);
+            byte[] actual = Arrays.copyOfRange(boats, r * schedule.boats, (r + 1) * schedule.boats);
+            Arrays.sort(expected);
+            Arrays.sort(actual);
+            assertArrayEquals(expected, actual, "race " + r + " of flight " + f + " changed its teams");
+        }
+    }
+
+    private static boolean contains(byte[] teams, int from, int length, byte team) {
+        for (int i = from; i < from + length; i++) {
+            if (teams[i] == team) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
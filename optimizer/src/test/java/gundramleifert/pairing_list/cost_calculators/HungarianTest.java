@@ -0,0 +1,66 @@
+package gundramleifert.pairing_list.cost_calculators;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@DisplayName("Hungarian Tests")
+class HungarianTest {
+
+    @Test
+    @DisplayName("finds the minimal assignment of random matrices")
+    void solveMatchesBruteForce() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int trial = 0; trial < 3000; trial++) {
+            int n = 1 + random.nextInt(7);
+            double[][] costs = new double[n][n];
+            for (double[] row : costs) {
+                for (int c = 0; c < n; c++) {
+                    // small integers give many ties, as the boat matrix costs do
+                    row[c] = random.nextInt(3) == 0 ? random.nextInt(5) - 2 : random.nextDouble(-5, 5);
+                }
+            }
+            int[] columns = Hungarian.solve(costs);
+            boolean[] taken = new boolean[n];
+            double sum = 0;
+            for (int row = 0; row < n; row++) {
+                assertFalse(taken[columns[row]], "column assigned twice");
+                taken[columns[row]] = true;
+                sum += costs[row][columns[row]];
+            }
+            assertEquals(bruteForce(costs, 0, new boolean[n]), sum, 1e-9);
+        }
+    }
+
+    @Test
+    @DisplayName("keeps the diagonal if it is the only zero assignment")
+    void solveIdentity() {
+        double[][] costs = {
+                {0, 1, 1},
+                {1, 0, 1},
+                {1, 1, 0}};
+        int[] columns = Hungarian.solve(costs);
+        for (int row = 0; row < costs.length; row++) {
+            assertEquals(row, columns[row]);
+        }
+    }
+
+    private static double bruteForce(double[][] costs, int row, boolean[] taken) {
+        if (row == costs.length) {
+            return 0;
+        }
+        double best = Double.POSITIVE_INFINITY;
+        for (int c = 0; c < costs.length; c++) {
+            if (!taken[c]) {
+                taken[c] = true;
+                best = Math.min(best, costs[row][c] + bruteForce(costs, row + 1, taken));
+                taken[c] = false;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,132 @@
+package gundramleifert.pairing_list.cost_calculators;
+
+import gundramleifert.pairing_list.TestConfigs;
+import gundramleifert.pairing_list.configs.OptMatchMatrixConfig;
+import gundramleifert.pairing_list.configs.ScheduleConfig;
+import gundramleifert.pairing_list.types.Flight;
+import gundramleifert.pairing_list.types.Race;
+import gundramleifert.pairing_list.types.Schedule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the bounds with the optimum of all schedules of tiny instances - a bound above it would stop the
+ * optimization at a suboptimal schedule.
+ */
+@DisplayName("MatchMatrixLowerBound Tests")
+class MatchMatrixLowerBoundTest {
+
+    @Test
+    @DisplayName("bounds full races")
+    void fullRaces() {
+        checkInstance(6, 2, 3);
+        checkInstance(6, 3, 3);
+        checkInstance(8, 4, 3);
+    }
+
+    @Test
+    @DisplayName("bounds races with no-shows")
+    void racesWithNoShows() {
+        checkInstance(5, 2, 3);
+        checkInstance(7, 3, 2);
+        checkInstance(5, 3, 3);
+    }
+
+    @Test
+    @DisplayName("is reached by any single flight of full races")
+    void tightForOneFlight() {
+        ScheduleConfig properties = TestConfigs.schedule(6, 2, 1);
+        OptMatchMatrixConfig config = TestConfigs.matchMatrix();
+        CostCalculatorMatchMatrix scorer = new CostCalculatorMatchMatrix(properties, config);
+        MatchMatrixLowerBound bound = new MatchMatrixLowerBound(properties, config);
+        for (Flight flight : flights(properties)) {
+            assertEquals(bound.get(1), scorer.score(new Schedule(new Schedule(properties), flight)), 1e-9);
+        }
+    }
+
+    private static void checkInstance(int teams, int boats, int flightCount) {
+        ScheduleConfig properties = TestConfigs.schedule(teams, boats, flightCount);
+        OptMatchMatrixConfig config = TestConfigs.matchMatrix();
+        CostCalculatorMatchMatrix scorer = new CostCalculatorMatchMatrix(properties, config);
+        MatchMatrixLowerBound bound = new MatchMatrixLowerBound(properties, config);
+        List<Flight> flights = flights(properties);
+        List<Schedule> schedules = List.of(new Schedule(properties));
+        for (int n = 1; n <= flightCount; n++) {
+            double optimum = Double.POSITIVE_INFINITY;
+            List<Schedule> next = new ArrayList<>();
+            for (Schedule base : schedules) {
+                double nextBound = bound.next(base.getMatchMatrix());
+                double best = Double.POSITIVE_INFINITY;
+                for (Flight flight : flights) {
+                    Schedule schedule = new Schedule(base, flight);
+                    best = Math.min(best, scorer.score(schedule));
+                    next.add(schedule);
+                }
+                assertBelow(nextBound, best,
+                        "next bound " + nextBound + " above the best extension " + best);
+                optimum = Math.min(optimum, best);
+            }
+            assertBelow(bound.get(n), optimum,
+                    teams + " teams, " + boats + " boats, " + n + " flights: bound " + bound.get(n)
+                            + " above the optimum " + optimum);
+            schedules = next;
+        }
+    }
+
+    private static void assertBelow(double bound, double optimum, String message) {
+        assertTrue(bound <= optimum + 1e-9 * Math.max(1, Math.abs(optimum)), message);
+    }
+
+    /**
+     * All flights, each division of the slots into races once: the costs do not depend on the order of the races
+     * or of the teams in a race.
+     */
+    private static List<Flight> flights(ScheduleConfig properties) {
+        List<Flight> res = new ArrayList<>();
+        addFlights(properties.bytes.clone(), 0, properties.numBoats, new ArrayList<>(), res);
+        return res;
+    }
+
+    private static void addFlights(byte[] slots, int used, int boats, List<Race> races, List<Flight> res) {
+        if (used == slots.length) {
+            res.add(new Flight(races.toArray(new Race[0])));
+            return;
+        }
+        // the first free slot opens the next race, so each division is built once
+        byte[] race = new byte[boats];
+        race[0] = slots[used];
+        addRaces(slots, used, used + 1, race, 1, boats, races, res);
+    }
+
+    private static void addRaces(byte[] slots, int used, int from, byte[] race, int filled, int boats,
+                                 List<Race> races, List<Flight> res) {
+        if (filled == boats) {
+            // move the chosen slots to the front of the free ones
+            byte[] rest = slots.clone();
+            int pos = used;
+            for (byte team : race) {
+                for (int i = pos; i < rest.length; i++) {
+                    if (rest[i] == team) {
+                        rest[i] = rest[pos];
+                        rest[pos++] = team;
+                        break;
+                    }
+                }
+            }
+            races.add(new Race(race.clone()));
+            addFlights(rest, used + boats, boats, races, res);
+            races.remove(races.size() - 1);
+            return;
+        }
+        for (int i = from; i < slots.length; i++) {
+            race[filled] = slots[i];
+            addRaces(slots, used, i + 1, race, filled + 1, boats, races, res);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package gundramleifert.pairing_list.types;
+
+import gundramleifert.pairing_list.TestConfigs;
+import gundramleifert.pairing_list.Util;
+import gundramleifert.pairing_list.configs.ScheduleConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The boat phase runs on {@link PackedSchedule}; packing and unpacking must keep every team on its boat, and the
+ * team set of each race has to follow its teams through boat and race swaps.
+ */
+@DisplayName("PackedSchedule Tests")
+class PackedScheduleTest {
+
+    // teams, boats, flights: full and with no-shows
+    private static final int[][] SHAPES = {{12, 3, 5}, {12, 6, 4}, {14, 4, 5}, {35, 5, 4}, {7, 3, 6}, {60, 10, 3}};
+
+    @Test
+    @DisplayName("packing and unpacking keeps the boat of every team and the team set of every race")
+    void roundTrip() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int[] shape : SHAPES) {
+            ScheduleConfig properties = TestConfigs.schedule(shape[0], shape[1], shape[2]);
+            for (int trial = 0; trial < 20; trial++) {
+                Schedule schedule = Util.shuffleBoats(Util.getRandomSchedule(properties, random), random);
+                PackedSchedule packed = PackedSchedule.of(schedule);
+                assertEquals(schedule.size(), packed.flights);
+                assertTeamSets(packed, "after packing " + Arrays.toString(shape));
+                Schedule unpacked = packed.toSchedule(properties);
+                assertEquals(schedule.size(), unpacked.size());
+                for (int f = 0; f < schedule.size(); f++) {
+                    for (int r = 0; r < packed.races; r++) {
+                        assertArrayEquals(schedule.get(f).races[r].teams, unpacked.get(f).races[r].teams,
+                                "flight " + f + " race " + r + " of " + Arrays.toString(shape));
+                    }
+                }
+                assertEquals(packed, PackedSchedule.of(unpacked));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("team sets follow their races through boat and race swaps, a second swap reverts")
+    void swapsKeepTeamSets() {
+        SplittableRandom random = new SplittableRandom(8);
+        for (int[] shape : SHAPES) {
+            ScheduleConfig properties = TestConfigs.schedule(shape[0], shape[1], shape[2]);
+            PackedSchedule packed = PackedSchedule.of(Util.getRandomSchedule(properties, random));
+            for (int step = 0; step < 500; step++) {
+                PackedSchedule before = packed.copy();
+                int flight = random.nextInt(packed.flights);
+                if (random.nextBoolean()) {
+                    int race = random.nextInt(packed.races);
+                    int boat1 = random.nextInt(packed.boats);
+                    int boat2 = random.nextInt(packed.boats);
+                    packed.swapBoats(flight, race, boat1, boat2);
+                    assertTeamSets(packed, "after a boat swap in " + Arrays.toString(shape));
+                    if (random.nextInt(4) == 0) {
+                        packed.swapBoats(flight, race, boat1, boat2);
+                        assertArrayEquals(before.teams, packed.teams, "boat swap not reverted");
+                    }
+                } else {
+                    int race1 = random.nextInt(packed.races);
+                    int race2 = random.nextInt(packed.races);
+                    packed.swapRaces(flight, race1, race2);
+                    assertTeamSets(packed, "after a race swap in " + Arrays.toString(shape));
+                    if (random.nextInt(4) == 0) {
+                        packed.swapRaces(flight, race1, race2);
+                        assertArrayEquals(before.teams, packed.teams, "race swap not reverted");
+                        assertArrayEquals(before.raceTeams, packed.raceTeams, "race swap sets not reverted");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("a copy is independent and keeps the Zobrist hash")
+    void copyIsIndependent() {
+        ScheduleConfig properties = TestConfigs.schedule(12, 3, 4);
+        PackedSchedule packed = PackedSchedule.of(Util.getRandomSchedule(properties, new SplittableRandom(9)));
+        packed.setZobristHash(42);
+        PackedSchedule copy = packed.copy();
+        assertEquals(42, copy.getZobristHash());
+        assertNotSame(packed.teams, copy.teams);
+        assertNotSame(packed.raceTeams, copy.raceTeams);
+        copy.swapRaces(0, 0, 1);
+        copy.swapBoats(1, 0, 0, 1);
+        assertTeamSets(packed, "original changed by its copy");
+        assertEquals(packed, PackedSchedule.of(packed.toSchedule(properties)));
+    }
+
+    @Test
+    @DisplayName("rejects flights with a different number of races or boats")
+    void rejectsRaggedSchedules() {
+        ScheduleConfig properties = TestConfigs.schedule(12, 3, 3);
+        Schedule fewerRaces = Util.getRandomSchedule(properties, new SplittableRandom(10));
+        Flight last = fewerRaces.get(2);
+        last.races = Arrays.copyOf(last.races, last.races.length - 1);
+        assertThrows(IllegalArgumentException.class, () -> PackedSchedule.of(fewerRaces));
+
+        Schedule fewerBoats = Util.getRandomSchedule(properties, new SplittableRandom(11));
+        Race race = fewerBoats.get(1).races[0];
+        race.teams = Arrays.copyOf(race.teams, race.teams.length - 1);
+        assertThrows(IllegalArgumentException.class, () -> PackedSchedule.of(fewerBoats));
+    }
+
+    /**
+     * Checks that the team set of each race holds exactly the teams of the race.
+     */
+    private static void assertTeamSets(PackedSchedule packed, String message) {
+        long[] expected = new long[packed.words];
+        for (int f = 0; f < packed.flights; f++) {
+            for (int r = 0; r < packed.races; r++) {
+                Arrays.fill(expected, 0);
+                TeamSet.of(packed.teams, packed.offset(f, r), packed.boats, expected, 0, packed.words);
+                int off = packed.setOffset(f, r);
+                assertArrayEquals(expected, Arrays.copyOfRange(packed.raceTeams, off, off + packed.words),
+                        message + ": flight " + f + " race " + r);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package gundramleifert.pairing_list;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD version of the {@link MatchMatrixKernel}: each vector of cells is compared against the values 0, 1, 2, ...
+ * until all lanes are counted. Match counts are concentrated around the average, so this usually takes a few
+ * compares per vector. Only loaded if the incubator module is present.
+ */
+final class VectorMatchMatrixKernel extends MatchMatrixKernel {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    @Override
+    public long histogram(byte[] cells, int[] histogram) {
+        int lanes = SPECIES.length();
+        int upper = SPECIES.loopBound(cells.length);
+        int i = 0;
+        for (; i < upper; i += lanes) {
+            ByteVector vector = ByteVector.fromArray(SPECIES, cells, i);
+            int left = lanes;
+            for (int v = 0; left > 0; v++) {
+                int count = vector.eq((byte) v).trueCount();
+                histogram[v] += count;
+                left -= count;
+            }
+        }
+        for (; i < cells.length; i++) {
+            histogram[cells[i]]++;
+        }
+        return sum(histogram);
+    }
+
+    @Override
+    public String getName() {
+        return "vector (" + SPECIES.length() + " lanes)";
+    }
+}